@@ -0,0 +1,161 @@
+package burp.gui;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import interactsh.InteractshEntry;
+import interactsh.bench.Samples;
+
+/**
+ * Adding a drained batch of interactions to the log table: the
+ * {@link RowIndex} insert and the row events a {@link JTable} receives, as in
+ * {@code InteractshTab.LogTable#rowsAdded}. The tab itself needs a running
+ * Burp, so the model here repeats that method over the same index and a
+ * headless JTable.
+ *
+ * The table starts each iteration with {@code initialRows} rows and grows as
+ * batches are added; it is reset once it reaches {@link #MAX_ROWS}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class LogTableInsertBenchmark {
+    private static final int ROW_EVENT_LIMIT = 256;
+    private static final int MAX_ROWS = 200_000;
+
+    @Param({ "1", "64", "1024" })
+    public int batchSize;
+
+    @Param({ "ID", "TIME", "SOURCE_IP" })
+    public String sortColumn;
+
+    @Param({ "10000" })
+    public int initialRows;
+
+    private List<InteractshEntry> samples;
+    private List<InteractshEntry> log;
+    private Model model;
+    private int nextSample;
+
+    @Setup
+    public void loadSamples() {
+        samples = new ArrayList<>();
+        for (String event : Samples.all()) {
+            samples.add(new InteractshEntry(event));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetTable() {
+        log = new ArrayList<>();
+        model = new Model();
+        new JTable(model);
+        addBatch(initialRows);
+    }
+
+    @Benchmark
+    public int insertBatch() {
+        if (log.size() + batchSize > MAX_ROWS) {
+            resetTable();
+        }
+        return addBatch(batchSize);
+    }
+
+    private int addBatch(int count) {
+        int firstIndex = log.size();
+        for (int i = 0; i < count; i++) {
+            InteractshEntry sample = samples.get(nextSample);
+            nextSample = (nextSample + 1 == samples.size()) ? 0 : nextSample + 1;
+            // Distinct times in arrival order with the odd late one, like a poll.
+            Instant time = sample.timestamp.plusMillis(log.size() - ((log.size() % 7 == 0) ? 500 : 0));
+            InteractshEntry entry = new InteractshEntry(sample.protocol, sample.uid, sample.address, time, false,
+                    null);
+            log.add(entry);
+        }
+        model.rowsAdded(firstIndex, count);
+        return model.getRowCount();
+    }
+
+    private RowIndex.IndexComparator comparator() {
+        switch (sortColumn) {
+            case "TIME":
+                return (a, b) -> log.get(a).timestamp.compareTo(log.get(b).timestamp);
+            case "SOURCE_IP":
+                return (a, b) -> log.get(a).address.compareTo(log.get(b).address);
+            default:
+                return Integer::compare;
+        }
+    }
+
+    private class Model extends AbstractTableModel {
+        private final RowIndex rows = new RowIndex(i -> log.get(i).protocol, comparator());
+
+        Model() {
+            rows.setAscending(false);
+        }
+
+        void rowsAdded(int firstIndex, int count) {
+            if (count > ROW_EVENT_LIMIT) {
+                for (int i = firstIndex; i < firstIndex + count; i++) {
+                    rows.insert(i);
+                }
+                fireTableDataChanged();
+                return;
+            }
+            for (int i = firstIndex; i < firstIndex + count; i++) {
+                int viewRow = rows.insert(i);
+                if (viewRow != -1) {
+                    fireTableRowsInserted(viewRow, viewRow);
+                }
+            }
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return 8;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            InteractshEntry entry = log.get(rows.modelIndex(row));
+            switch (column) {
+                case 0:
+                    return rows.modelIndex(row);
+                case 1:
+                    return entry.uid;
+                case 2:
+                    return entry.protocol;
+                case 3:
+                    return entry.address;
+                default:
+                    return entry.timestamp;
+            }
+        }
+    }
+}
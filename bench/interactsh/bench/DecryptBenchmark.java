@@ -0,0 +1,78 @@
+package interactsh.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import interactsh.PayloadDecryptor;
+
+/**
+ * Record decryption for servers that encrypt with CTR (public servers) or CFB
+ * (self-hosted). {@code fixedMode} decrypts with the server's mode,
+ * {@code auto} goes through an AUTO decryptor that has already pinned it, and
+ * {@code autoFirstRecord} uses a fresh AUTO decryptor per record, which is
+ * what the first record of a session costs (on a CFB server that includes a
+ * failed CTR attempt).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DecryptBenchmark {
+
+    @Param({ "CTR", "CFB" })
+    public String serverMode;
+
+    private SecretKeySpec key;
+    private byte[][] records;
+    private PayloadDecryptor auto;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        key = Samples.key();
+        List<String> events = Samples.all();
+        records = new byte[events.size()][];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = Samples.encrypt(events.get(i), key, serverMode);
+        }
+        auto = new PayloadDecryptor("AUTO");
+        auto.decrypt(records[0], key);
+    }
+
+    private byte[] nextRecord() {
+        byte[] record = records[next];
+        next = (next + 1 == records.length) ? 0 : next + 1;
+        return record;
+    }
+
+    @Benchmark
+    public String fixedMode() throws Exception {
+        return PayloadDecryptor.decryptDataWithMode(nextRecord(), key, serverMode);
+    }
+
+    @Benchmark
+    public String auto() throws Exception {
+        return auto.decrypt(nextRecord(), key);
+    }
+
+    @Benchmark
+    public String autoFirstRecord() throws Exception {
+        return new PayloadDecryptor("AUTO").decrypt(nextRecord(), key);
+    }
+}
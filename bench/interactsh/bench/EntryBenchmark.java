@@ -0,0 +1,49 @@
+package interactsh.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import interactsh.InteractshEntry;
+
+/**
+ * Parsing a decrypted event into an {@link InteractshEntry}, per protocol.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EntryBenchmark {
+
+    @Param({ "dns", "http", "https", "smtp", "ftp", "ldap", "smb", "responder" })
+    public String protocol;
+
+    private String[] events;
+    private int next;
+
+    @Setup
+    public void setup() {
+        List<String> samples = Samples.of(protocol);
+        events = samples.toArray(new String[0]);
+    }
+
+    @Benchmark
+    public InteractshEntry construct() {
+        String event = events[next];
+        next = (next + 1 == events.length) ? 0 : next + 1;
+        return new InteractshEntry(event);
+    }
+}
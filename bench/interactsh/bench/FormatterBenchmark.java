@@ -0,0 +1,69 @@
+package interactsh.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import interactsh.formatters.BaseFormatter;
+import interactsh.formatters.FormatterRegistry;
+
+/**
+ * Rendering the details pane text, for every formatter in the registry.
+ * {@code format} starts from a parsed event, {@code parseAndFormat} from the
+ * event JSON as the details view does.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FormatterBenchmark {
+
+    @Param({ "dns", "http", "smtp", "ftp", "ldap", "smb", "responder" })
+    public String protocol;
+
+    private BaseFormatter formatter;
+    private String[] events;
+    private JSONObject[] parsed;
+    private int next;
+
+    @Setup
+    public void setup() {
+        formatter = FormatterRegistry.get(protocol);
+        List<String> samples = Samples.of(protocol);
+        events = samples.toArray(new String[0]);
+        parsed = new JSONObject[events.length];
+        for (int i = 0; i < events.length; i++) {
+            parsed[i] = new JSONObject(events[i]);
+        }
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = (next + 1 == events.length) ? 0 : next + 1;
+        return index;
+    }
+
+    @Benchmark
+    public String format() {
+        return formatter.format(parsed[nextIndex()]);
+    }
+
+    @Benchmark
+    public String parseAndFormat() {
+        return formatter.format(new JSONObject(events[nextIndex()]));
+    }
+}
@@ -0,0 +1,92 @@
+package interactsh.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.json.JSONObject;
+
+/**
+ * Recorded interaction events from {@code bench/samples/interactions.jsonl},
+ * one decrypted poll record per line, covering every protocol the extension
+ * formats. The file can be replaced with {@code -Dbench.samples=<path>}.
+ */
+public final class Samples {
+
+    private static final Path PATH = Paths.get(System.getProperty("bench.samples", "bench/samples/interactions.jsonl"));
+
+    private Samples() {
+    }
+
+    public static List<String> all() {
+        try {
+            List<String> events = new ArrayList<>();
+            for (String line : Files.readAllLines(PATH, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    events.add(line.trim());
+                }
+            }
+            return events;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read samples from " + PATH.toAbsolutePath(), ex);
+        }
+    }
+
+    /**
+     * The samples of one protocol, as written by the server (e.g. "https").
+     */
+    public static List<String> of(String protocol) {
+        List<String> events = new ArrayList<>();
+        for (String event : all()) {
+            if (new JSONObject(event).getString("protocol").equals(protocol)) {
+                events.add(event);
+            }
+        }
+        if (events.isEmpty()) {
+            throw new IllegalArgumentException("No " + protocol + " samples in " + PATH.toAbsolutePath());
+        }
+        return events;
+    }
+
+    /**
+     * A fixed AES-256 key, so runs decrypt the same bytes.
+     */
+    public static SecretKeySpec key() {
+        byte[] key = new byte[32];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = (byte) (i * 31 + 7);
+        }
+        return new SecretKeySpec(key, "AES");
+    }
+
+    /**
+     * Encrypts an event the way the server does: a random IV followed by the
+     * AES ciphertext in the given mode.
+     */
+    public static byte[] encrypt(String event, SecretKeySpec key, String mode) {
+        try {
+            byte[] iv = new byte[16];
+            new SecureRandom().nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/" + mode + "/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+            byte[] ciphertext = cipher.doFinal(event.getBytes(StandardCharsets.UTF_8));
+
+            byte[] record = new byte[iv.length + ciphertext.length];
+            System.arraycopy(iv, 0, record, 0, iv.length);
+            System.arraycopy(ciphertext, 0, record, iv.length, ciphertext.length);
+            return record;
+        } catch (Exception ex) {
+            throw new IllegalStateException("Cannot encrypt sample with AES/" + mode, ex);
+        }
+    }
+}
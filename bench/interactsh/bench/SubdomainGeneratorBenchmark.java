@@ -0,0 +1,69 @@
+package interactsh.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import interactsh.SubdomainGenerator;
+
+/**
+ * Payload domain generation throughput, single-threaded and with one thread
+ * per core sharing a session's generator. {@code legacy} is the previous
+ * implementation (new Random per call, string concatenation) for reference.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SubdomainGeneratorBenchmark {
+
+    private static final String CORRELATION_ID = "d1c2b3a4e5f60718293a";
+    private static final String HOST = "oast.live";
+
+    private final SubdomainGenerator generator = new SubdomainGenerator(CORRELATION_ID, HOST);
+
+    @Benchmark
+    public String domain() {
+        return generator.next();
+    }
+
+    @Benchmark
+    public long nonce() {
+        return generator.nextNonce();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String domainAllCores() {
+        return generator.next();
+    }
+
+    @Benchmark
+    public String legacy() {
+        String fullDomain = CORRELATION_ID;
+        Random random = new Random();
+        while (fullDomain.length() < 33) {
+            fullDomain += (char) (random.nextInt(26) + 'a');
+        }
+        fullDomain += "." + HOST;
+        return fullDomain;
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String legacyAllCores() {
+        return legacy();
+    }
+}
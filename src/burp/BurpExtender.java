@@ -3,11 +3,18 @@ package burp;
 import burp.api.montoya.BurpExtension;
 import burp.api.montoya.MontoyaApi;
 import burp.api.montoya.extension.ExtensionUnloadingHandler;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.scanner.scancheck.ScanCheckType;
 import burp.api.montoya.ui.contextmenu.ContextMenuEvent;
 import burp.api.montoya.ui.contextmenu.ContextMenuItemsProvider;
 import burp.gui.Config;
 import burp.gui.InteractshTab;
+import burp.intruder.InteractshPayloadGeneratorProvider;
+import burp.listeners.SessionManager;
+import burp.scanner.InteractshScanCheck;
+import interactsh.InteractshClient;
 import interactsh.InteractshEntry;
+import interactsh.PayloadIndex;
 
 import java.awt.Component;
 import java.util.ArrayList;
@@ -18,6 +25,9 @@ public class BurpExtender
 		implements BurpExtension, ContextMenuItemsProvider, ExtensionUnloadingHandler {
 	public static MontoyaApi api;
 	public static InteractshTab tab;
+	public static SessionManager sessions;
+	public static PayloadIndex payloads;
+	public static InteractshScanCheck scanCheck;
 	public static volatile boolean unloading = false;
 
 	@Override
@@ -31,10 +41,16 @@ public class BurpExtender
 		api.logging().logToOutput("Interactsh Collaborator (rev) by Arqsz");
 
 		burp.gui.Config.generateConfig();
+		interactsh.KeyPairPool.prefill(Config.getKeySize());
+		BurpExtender.sessions = new SessionManager();
+		BurpExtender.payloads = new PayloadIndex();
 		BurpExtender.tab = new InteractshTab(api);
 		burp.gui.Config.loadConfig();
 
 		api.userInterface().registerSuiteTab("Interactsh", tab);
+		api.intruder().registerPayloadGeneratorProvider(new InteractshPayloadGeneratorProvider());
+		BurpExtender.scanCheck = new InteractshScanCheck();
+		api.scanner().registerActiveScanCheck(scanCheck, ScanCheckType.PER_INSERTION_POINT);
 	}
 
 	@Override
@@ -43,6 +59,11 @@ public class BurpExtender
 		if (BurpExtender.tab != null) {
 			BurpExtender.tab.cleanup();
 		}
+		if (BurpExtender.sessions != null) {
+			BurpExtender.sessions.shutdown();
+		}
+		interactsh.transport.Transports.shutdown();
+		interactsh.KeyPairPool.shutdown();
 		if (BurpExtender.api != null) {
 			try {
 				BurpExtender.api.logging().logToOutput("Thanks for collaborating!");
@@ -51,6 +72,9 @@ public class BurpExtender
 		}
 		BurpExtender.api = null;
 		BurpExtender.tab = null;
+		BurpExtender.sessions = null;
+		BurpExtender.payloads = null;
+		BurpExtender.scanCheck = null;
 	}
 
 	public static int getPollTime() {
@@ -62,7 +86,15 @@ public class BurpExtender
 	}
 
 	public static void addToTable(InteractshEntry i) {
-		BurpExtender.tab.addToTable(i);
+		addToTable(List.of(i));
+	}
+
+	public static void addToTable(List<InteractshEntry> entries) {
+		InteractshScanCheck check = BurpExtender.scanCheck;
+		if (check != null) {
+			check.interactionsReceived(entries);
+		}
+		BurpExtender.tab.addToTable(entries);
 	}
 
 	public static void debugLog(String message) {
@@ -75,9 +107,30 @@ public class BurpExtender
 	public List<Component> provideMenuItems(ContextMenuEvent event) {
 		List<Component> menuList = new ArrayList<Component>();
 		JMenuItem item = new JMenuItem("Copy Interactsh URL");
-		item.addActionListener(e -> BurpExtender.tab.getListener().copyCurrentUrlToClipboard());
+		item.addActionListener(e -> {
+			InteractshClient client = BurpExtender.tab.getListener().getClient();
+			PayloadIndex.Origin origin = (client == null) ? null
+					: new PayloadIndex.Origin("Context menu (" + event.toolType().toolName() + ")",
+							describeRequest(event), client.getCorrelationId());
+			BurpExtender.tab.getListener().copyUrlToClipboard(origin);
+		});
 		menuList.add(item);
 
 		return menuList;
 	}
+
+	private static String describeRequest(ContextMenuEvent event) {
+		HttpRequest request = event.messageEditorRequestResponse()
+				.map(editor -> editor.requestResponse().request())
+				.orElseGet(() -> event.selectedRequestResponses().isEmpty() ? null
+						: event.selectedRequestResponses().get(0).request());
+		if (request == null) {
+			return "";
+		}
+		try {
+			return request.method() + " " + request.url();
+		} catch (Exception ex) {
+			return "";
+		}
+	}
 }
@@ -2,6 +2,7 @@ package burp.gui;
 
 import burp.BurpExtender;
 import burp.api.montoya.persistence.Preferences;
+import interactsh.SessionState;
 
 public class Config {
 
@@ -12,6 +13,22 @@ public class Config {
 	private static final String DEFAULT_USES_TLS = "true";
 	private static final String DEFAULT_AES_MODE = "AUTO";
 	private static final String DEFAULT_DEBUG_LOGGING = "false";
+	private static final String DEFAULT_BATCH_POLLING = "false";
+	private static final String DEFAULT_TRANSPORT = "BURP";
+	private static final String DEFAULT_ADAPTIVE_POLLING = "false";
+	private static final String DEFAULT_MIN_POLL_INTERVAL = "2";
+	private static final String DEFAULT_MAX_POLL_INTERVAL = "300";
+	private static final String DEFAULT_RECEIVE_MODE = "INTERVAL";
+	private static final String DEFAULT_STORE_MAX_ENTRIES = "10000";
+	private static final String DEFAULT_STORE_MAX_MEGABYTES = "256";
+	private static final String DEFAULT_JOURNAL = "false";
+	private static final String DEFAULT_RESUME_SESSION = "false";
+	private static final String DEFAULT_KEY_SIZE = "2048";
+	private static final String DEFAULT_AGGREGATE = "false";
+	private static final String DEFAULT_AGGREGATE_WINDOW = "60";
+	private static final String DEFAULT_INTRUDER_PAYLOADS = "1000";
+	private static final String DEFAULT_SCAN_CHECK = "false";
+	private static final String DEFAULT_SCAN_TTL = "60";
 
 	private static Preferences preferences() {
 		return BurpExtender.api.persistence().preferences();
@@ -22,6 +39,14 @@ public class Config {
 		return (value == null) ? defaultValue : value;
 	}
 
+	private static int getInt(String key, String defaultValue) {
+		try {
+			return Integer.parseInt(getString(key, defaultValue).trim());
+		} catch (NumberFormatException ex) {
+			return Integer.parseInt(defaultValue);
+		}
+	}
+
 	public static void generateConfig() {
 		if (preferences().getString("interactsh-server") == null) {
 			preferences().setString("interactsh-server", DEFAULT_SERVER);
@@ -31,6 +56,22 @@ public class Config {
 			preferences().setString("interactsh-uses-tls", DEFAULT_USES_TLS);
 			preferences().setString("interactsh-aes-mode", DEFAULT_AES_MODE);
 			preferences().setString("interactsh-debug-logging", DEFAULT_DEBUG_LOGGING);
+			preferences().setString("interactsh-batch-polling", DEFAULT_BATCH_POLLING);
+			preferences().setString("interactsh-transport", DEFAULT_TRANSPORT);
+			preferences().setString("interactsh-adaptive-polling", DEFAULT_ADAPTIVE_POLLING);
+			preferences().setString("interactsh-poll-min", DEFAULT_MIN_POLL_INTERVAL);
+			preferences().setString("interactsh-poll-max", DEFAULT_MAX_POLL_INTERVAL);
+			preferences().setString("interactsh-receive-mode", DEFAULT_RECEIVE_MODE);
+			preferences().setString("interactsh-store-max-entries", DEFAULT_STORE_MAX_ENTRIES);
+			preferences().setString("interactsh-store-max-mb", DEFAULT_STORE_MAX_MEGABYTES);
+			preferences().setString("interactsh-journal", DEFAULT_JOURNAL);
+			preferences().setString("interactsh-resume-session", DEFAULT_RESUME_SESSION);
+			preferences().setString("interactsh-key-size", DEFAULT_KEY_SIZE);
+			preferences().setString("interactsh-aggregate", DEFAULT_AGGREGATE);
+			preferences().setString("interactsh-aggregate-window", DEFAULT_AGGREGATE_WINDOW);
+			preferences().setString("interactsh-intruder-payloads", DEFAULT_INTRUDER_PAYLOADS);
+			preferences().setString("interactsh-scan-check", DEFAULT_SCAN_CHECK);
+			preferences().setString("interactsh-scan-ttl", DEFAULT_SCAN_TTL);
 		}
 	}
 
@@ -42,6 +83,22 @@ public class Config {
 		String pollInterval = getString("interactsh-poll-time", DEFAULT_POLL_INTERVAL);
 		String aesMode = getString("interactsh-aes-mode", DEFAULT_AES_MODE);
 		String debugLogging = getString("interactsh-debug-logging", DEFAULT_DEBUG_LOGGING);
+		String batchPolling = getString("interactsh-batch-polling", DEFAULT_BATCH_POLLING);
+		String transport = getString("interactsh-transport", DEFAULT_TRANSPORT);
+		String adaptivePolling = getString("interactsh-adaptive-polling", DEFAULT_ADAPTIVE_POLLING);
+		String minPollInterval = getString("interactsh-poll-min", DEFAULT_MIN_POLL_INTERVAL);
+		String maxPollInterval = getString("interactsh-poll-max", DEFAULT_MAX_POLL_INTERVAL);
+		String receiveMode = getString("interactsh-receive-mode", DEFAULT_RECEIVE_MODE);
+		String storeMaxEntries = getString("interactsh-store-max-entries", DEFAULT_STORE_MAX_ENTRIES);
+		String storeMaxMegabytes = getString("interactsh-store-max-mb", DEFAULT_STORE_MAX_MEGABYTES);
+		String journal = getString("interactsh-journal", DEFAULT_JOURNAL);
+		String resumeSession = getString("interactsh-resume-session", DEFAULT_RESUME_SESSION);
+		String keySize = getString("interactsh-key-size", DEFAULT_KEY_SIZE);
+		String aggregate = getString("interactsh-aggregate", DEFAULT_AGGREGATE);
+		String aggregateWindow = getString("interactsh-aggregate-window", DEFAULT_AGGREGATE_WINDOW);
+		String intruderPayloads = getString("interactsh-intruder-payloads", DEFAULT_INTRUDER_PAYLOADS);
+		String scanCheck = getString("interactsh-scan-check", DEFAULT_SCAN_CHECK);
+		String scanTtl = getString("interactsh-scan-ttl", DEFAULT_SCAN_TTL);
 
 		InteractshTab.setServerText(server);
 		InteractshTab.setPortText(port);
@@ -50,6 +107,22 @@ public class Config {
 		InteractshTab.setTlsBox(Boolean.parseBoolean(tls));
 		InteractshTab.setAesModeText(aesMode);
 		InteractshTab.setDebugLogging(Boolean.parseBoolean(debugLogging));
+		InteractshTab.setBatchPolling(Boolean.parseBoolean(batchPolling));
+		InteractshTab.setTransportText(transport);
+		InteractshTab.setAdaptivePolling(Boolean.parseBoolean(adaptivePolling));
+		InteractshTab.setMinPollText(minPollInterval);
+		InteractshTab.setMaxPollText(maxPollInterval);
+		InteractshTab.setReceiveModeText(receiveMode);
+		InteractshTab.setStoreMaxEntriesText(storeMaxEntries);
+		InteractshTab.setStoreMaxMegabytesText(storeMaxMegabytes);
+		InteractshTab.setJournal(Boolean.parseBoolean(journal));
+		InteractshTab.setResumeSession(Boolean.parseBoolean(resumeSession));
+		InteractshTab.setKeySizeText(keySize);
+		InteractshTab.setAggregate(Boolean.parseBoolean(aggregate));
+		InteractshTab.setAggregateWindowText(aggregateWindow);
+		InteractshTab.setIntruderPayloadsText(intruderPayloads);
+		InteractshTab.setScanCheck(Boolean.parseBoolean(scanCheck));
+		InteractshTab.setScanTtlText(scanTtl);
 	}
 
 	public static void updateConfig() {
@@ -60,6 +133,23 @@ public class Config {
 		String tls = InteractshTab.getTlsBox();
 		String aesMode = InteractshTab.getAesModeText();
 		String debugLogging = InteractshTab.getDebugLogging();
+		String batchPolling = InteractshTab.getBatchPolling();
+		String transport = InteractshTab.getTransportText();
+		String adaptivePolling = InteractshTab.getAdaptivePolling();
+		String minPollInterval = InteractshTab.getMinPollText();
+		String maxPollInterval = InteractshTab.getMaxPollText();
+		String receiveMode = InteractshTab.getReceiveModeText();
+		String storeMaxEntries = InteractshTab.getStoreMaxEntriesText();
+		String storeMaxMegabytes = InteractshTab.getStoreMaxMegabytesText();
+		String journal = InteractshTab.getJournal();
+		String resumeSession = InteractshTab.getResumeSession();
+		String keySize = InteractshTab.getKeySizeText();
+		String aggregate = InteractshTab.getAggregate();
+		String aggregateWindow = InteractshTab.getAggregateWindowText();
+		String intruderPayloads = InteractshTab.getIntruderPayloadsText();
+		String scanCheck = InteractshTab.getScanCheck();
+		String scanTtl = InteractshTab.getScanTtlText();
+		boolean wasResuming = isResumeSessionEnabled();
 
 		preferences().setString("interactsh-server", server);
 		preferences().setString("interactsh-port", port);
@@ -68,6 +158,27 @@ public class Config {
 		preferences().setString("interactsh-authorization", authorization);
 		preferences().setString("interactsh-aes-mode", aesMode);
 		preferences().setString("interactsh-debug-logging", debugLogging);
+		preferences().setString("interactsh-batch-polling", batchPolling);
+		preferences().setString("interactsh-transport", transport);
+		preferences().setString("interactsh-adaptive-polling", adaptivePolling);
+		preferences().setString("interactsh-poll-min", minPollInterval);
+		preferences().setString("interactsh-poll-max", maxPollInterval);
+		preferences().setString("interactsh-receive-mode", receiveMode);
+		preferences().setString("interactsh-store-max-entries", storeMaxEntries);
+		preferences().setString("interactsh-store-max-mb", storeMaxMegabytes);
+		preferences().setString("interactsh-journal", journal);
+		preferences().setString("interactsh-resume-session", resumeSession);
+		preferences().setString("interactsh-key-size", keySize);
+		preferences().setString("interactsh-aggregate", aggregate);
+		preferences().setString("interactsh-aggregate-window", aggregateWindow);
+		preferences().setString("interactsh-intruder-payloads", intruderPayloads);
+		preferences().setString("interactsh-scan-check", scanCheck);
+		preferences().setString("interactsh-scan-ttl", scanTtl);
+
+		// A session that will no longer be resumed should not stay in the project.
+		if (wasResuming && !Boolean.parseBoolean(resumeSession)) {
+			SessionState.clear(BurpExtender.api.persistence().extensionData());
+		}
 	}
 
 	public static String getHost() {
@@ -97,4 +208,72 @@ public class Config {
 	public static boolean isDebugEnabled() {
 		return Boolean.parseBoolean(getString("interactsh-debug-logging", DEFAULT_DEBUG_LOGGING));
 	}
+
+	public static boolean isBatchPollingEnabled() {
+		return Boolean.parseBoolean(getString("interactsh-batch-polling", DEFAULT_BATCH_POLLING));
+	}
+
+	public static String getTransport() {
+		return getString("interactsh-transport", DEFAULT_TRANSPORT);
+	}
+
+	public static boolean isAdaptivePollingEnabled() {
+		return Boolean.parseBoolean(getString("interactsh-adaptive-polling", DEFAULT_ADAPTIVE_POLLING));
+	}
+
+	public static int getMinPollInterval() {
+		return getInt("interactsh-poll-min", DEFAULT_MIN_POLL_INTERVAL);
+	}
+
+	public static int getMaxPollInterval() {
+		return getInt("interactsh-poll-max", DEFAULT_MAX_POLL_INTERVAL);
+	}
+
+	public static String getReceiveMode() {
+		return getString("interactsh-receive-mode", DEFAULT_RECEIVE_MODE);
+	}
+
+	public static boolean isLongPollEnabled() {
+		return "LONG_POLL".equalsIgnoreCase(getReceiveMode());
+	}
+
+	public static int getStoreMaxEntries() {
+		return getInt("interactsh-store-max-entries", DEFAULT_STORE_MAX_ENTRIES);
+	}
+
+	public static int getStoreMaxMegabytes() {
+		return getInt("interactsh-store-max-mb", DEFAULT_STORE_MAX_MEGABYTES);
+	}
+
+	public static boolean isJournalEnabled() {
+		return Boolean.parseBoolean(getString("interactsh-journal", DEFAULT_JOURNAL));
+	}
+
+	public static boolean isResumeSessionEnabled() {
+		return Boolean.parseBoolean(getString("interactsh-resume-session", DEFAULT_RESUME_SESSION));
+	}
+
+	public static int getKeySize() {
+		return getInt("interactsh-key-size", DEFAULT_KEY_SIZE);
+	}
+
+	public static boolean isAggregationEnabled() {
+		return Boolean.parseBoolean(getString("interactsh-aggregate", DEFAULT_AGGREGATE));
+	}
+
+	public static int getAggregationWindow() {
+		return getInt("interactsh-aggregate-window", DEFAULT_AGGREGATE_WINDOW);
+	}
+
+	public static int getIntruderPayloadCount() {
+		return getInt("interactsh-intruder-payloads", DEFAULT_INTRUDER_PAYLOADS);
+	}
+
+	public static boolean isScanCheckEnabled() {
+		return Boolean.parseBoolean(getString("interactsh-scan-check", DEFAULT_SCAN_CHECK));
+	}
+
+	public static int getScanPayloadTtl() {
+		return getInt("interactsh-scan-ttl", DEFAULT_SCAN_TTL);
+	}
 }
@@ -0,0 +1,342 @@
+package burp.gui;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import interactsh.InteractshEntry;
+
+/**
+ * Compiles filter expressions such as
+ * {@code protocol:dns and qtype:A and src:10.0.0.0/8 and time>-1h} into a
+ * predicate over the fields of {@link InteractshEntry}.
+ *
+ * Terms are {@code field:value}, or {@code time>value} / {@code time<value},
+ * joined with {@code and} (also implied between terms), {@code or}, {@code not}
+ * and parentheses:
+ * <ul>
+ * <li>{@code protocol:} / {@code proto:} protocol, {@code http} includes HTTPS</li>
+ * <li>{@code qtype:} DNS query type. Read from the journal index for restored
+ * entries; only entries journaled by older versions load their event for it</li>
+ * <li>{@code src:} / {@code address:} source address or CIDR range, IPv4 or IPv6</li>
+ * <li>{@code uid:} / {@code id:} substring of the unique ID, or {@code /regex/}</li>
+ * <li>{@code origin:} substring of where the payload was planted</li>
+ * <li>{@code time>} / {@code time<} relative ({@code -30s}, {@code -5m}, {@code -1h},
+ * {@code -2d}) or ISO-8601 instant</li>
+ * </ul>
+ * A bare word matches the unique ID or the source address. Parse errors are
+ * reported as {@link IllegalArgumentException}.
+ */
+final class EntryFilter {
+	private static final Pattern ADDRESS_CHARS = Pattern.compile("[0-9a-fA-F:.]+");
+	private static final Pattern IPV4 = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+	// Cached for entries whose address is not a literal, so it is not parsed again.
+	private static final byte[] NO_ADDRESS = new byte[0];
+
+	private final List<String> tokens;
+	private int position = 0;
+
+	private EntryFilter(String expression) {
+		this.tokens = tokenize(expression);
+	}
+
+	/**
+	 * Parses the expression once; the returned predicate does no parsing.
+	 */
+	static Predicate<InteractshEntry> compile(String expression) {
+		EntryFilter parser = new EntryFilter(expression);
+		if (parser.tokens.isEmpty()) {
+			return entry -> true;
+		}
+		Predicate<InteractshEntry> predicate = parser.parseOr();
+		if (parser.position < parser.tokens.size()) {
+			throw new IllegalArgumentException("Unexpected '" + parser.tokens.get(parser.position) + "'");
+		}
+		return predicate;
+	}
+
+	/**
+	 * True when the expression has a relative time term such as
+	 * {@code time>-5m}, whose result changes as time passes.
+	 */
+	static boolean slides(String expression) {
+		for (String token : tokenize(expression)) {
+			int colon = token.indexOf(':');
+			int compare = indexOfAny(token, '<', '>');
+			if (compare != -1 && (colon == -1 || compare < colon) && token.startsWith("-", compare + 1)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Predicate<InteractshEntry> parseOr() {
+		Predicate<InteractshEntry> left = parseAnd();
+		while (accept("or")) {
+			left = left.or(parseAnd());
+		}
+		return left;
+	}
+
+	private Predicate<InteractshEntry> parseAnd() {
+		Predicate<InteractshEntry> left = parseUnary();
+		while (position < tokens.size() && !peekIs("or") && !peekIs(")")) {
+			accept("and");
+			left = left.and(parseUnary());
+		}
+		return left;
+	}
+
+	private Predicate<InteractshEntry> parseUnary() {
+		if (accept("not")) {
+			return parseUnary().negate();
+		}
+		if (accept("(")) {
+			Predicate<InteractshEntry> inner = parseOr();
+			if (!accept(")")) {
+				throw new IllegalArgumentException("Missing ')'");
+			}
+			return inner;
+		}
+		if (position >= tokens.size()) {
+			throw new IllegalArgumentException("Expression ends unexpectedly");
+		}
+		return parseTerm(tokens.get(position++));
+	}
+
+	private Predicate<InteractshEntry> parseTerm(String term) {
+		int colon = term.indexOf(':');
+		int compare = indexOfAny(term, '<', '>');
+		if (compare != -1 && (colon == -1 || compare < colon)) {
+			return timeTerm(term.substring(0, compare), term.charAt(compare), term.substring(compare + 1));
+		}
+		if (colon == -1) {
+			String needle = term.toLowerCase(Locale.ROOT);
+			return entry -> entry.uid.toLowerCase(Locale.ROOT).contains(needle)
+					|| entry.address.toLowerCase(Locale.ROOT).contains(needle);
+		}
+
+		String field = term.substring(0, colon).toLowerCase(Locale.ROOT);
+		String value = term.substring(colon + 1);
+		if (value.isEmpty()) {
+			throw new IllegalArgumentException("Missing value for '" + field + "'");
+		}
+
+		switch (field) {
+			case "protocol":
+			case "proto":
+				String bucket = RowIndex.bucketOf(value);
+				return entry -> RowIndex.bucketOf(entry.protocol).equals(bucket);
+			case "qtype":
+				return entry -> entry.getQueryType().equalsIgnoreCase(value);
+			case "src":
+			case "address":
+				return addressTerm(value);
+			case "uid":
+			case "id":
+				return uidTerm(value);
+			case "origin":
+				String needle = value.toLowerCase(Locale.ROOT);
+				return entry -> entry.getOrigin() != null && entry.getOrigin().toLowerCase(Locale.ROOT).contains(needle);
+			default:
+				throw new IllegalArgumentException("Unknown field '" + field + "'");
+		}
+	}
+
+	private static Predicate<InteractshEntry> uidTerm(String value) {
+		if (value.length() > 1 && value.startsWith("/") && value.endsWith("/")) {
+			try {
+				Pattern pattern = Pattern.compile(value.substring(1, value.length() - 1), Pattern.CASE_INSENSITIVE);
+				return entry -> pattern.matcher(entry.uid).find();
+			} catch (PatternSyntaxException ex) {
+				throw new IllegalArgumentException("Invalid regex: " + ex.getDescription());
+			}
+		}
+		String needle = value.toLowerCase(Locale.ROOT);
+		return entry -> entry.uid.toLowerCase(Locale.ROOT).contains(needle);
+	}
+
+	private static Predicate<InteractshEntry> addressTerm(String value) {
+		int slash = value.indexOf('/');
+		byte[] network = parseAddress(slash == -1 ? value : value.substring(0, slash));
+		if (network == null) {
+			throw new IllegalArgumentException("Invalid address '" + value + "'");
+		}
+		int prefix;
+		try {
+			prefix = (slash == -1) ? network.length * 8 : Integer.parseInt(value.substring(slash + 1));
+		} catch (NumberFormatException ex) {
+			throw new IllegalArgumentException("Invalid prefix length in '" + value + "'");
+		}
+		if (prefix < 0 || prefix > network.length * 8) {
+			throw new IllegalArgumentException("Invalid prefix length in '" + value + "'");
+		}
+		return entry -> inRange(addressOf(entry), network, prefix);
+	}
+
+	private static byte[] addressOf(InteractshEntry entry) {
+		byte[] address = entry.getParsedAddress();
+		if (address == null) {
+			address = parseAddress(stripPort(entry.address));
+			if (address == null) {
+				address = NO_ADDRESS;
+			}
+			entry.setParsedAddress(address);
+		}
+		return address;
+	}
+
+	private static Predicate<InteractshEntry> timeTerm(String field, char operator, String value) {
+		if (!field.equalsIgnoreCase("time")) {
+			throw new IllegalArgumentException("Only 'time' supports '" + operator + "'");
+		}
+		Supplier<Instant> bound = parseTime(value);
+		return (operator == '>') ? entry -> entry.timestamp.isAfter(bound.get())
+				: entry -> entry.timestamp.isBefore(bound.get());
+	}
+
+	/**
+	 * Relative times are measured from the moment an entry is tested. Rows
+	 * already in view are only tested again when the filter is re-applied, so
+	 * callers re-apply expressions that {@link #slides} on a timer.
+	 */
+	private static Supplier<Instant> parseTime(String value) {
+		if (value.startsWith("-") && value.length() > 2) {
+			char unit = Character.toLowerCase(value.charAt(value.length() - 1));
+			long amount;
+			try {
+				amount = Long.parseLong(value.substring(1, value.length() - 1));
+			} catch (NumberFormatException ex) {
+				throw new IllegalArgumentException("Invalid time '" + value + "'");
+			}
+			Duration duration;
+			switch (unit) {
+				case 's':
+					duration = Duration.ofSeconds(amount);
+					break;
+				case 'm':
+					duration = Duration.ofMinutes(amount);
+					break;
+				case 'h':
+					duration = Duration.ofHours(amount);
+					break;
+				case 'd':
+					duration = Duration.ofDays(amount);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown time unit '" + unit + "', use s, m, h or d");
+			}
+			return () -> Instant.now().minus(duration);
+		}
+		try {
+			Instant instant = Instant.parse(value);
+			return () -> instant;
+		} catch (DateTimeParseException ex) {
+			throw new IllegalArgumentException("Invalid time '" + value + "'");
+		}
+	}
+
+	// Only literals are accepted so a typo never turns into a DNS lookup.
+	private static byte[] parseAddress(String address) {
+		if (address.isEmpty() || !ADDRESS_CHARS.matcher(address).matches()) {
+			return null;
+		}
+		if (address.indexOf(':') == -1 && !IPV4.matcher(address).matches()) {
+			return null;
+		}
+		try {
+			return InetAddress.getByName(address).getAddress();
+		} catch (UnknownHostException ex) {
+			return null;
+		}
+	}
+
+	// "1.2.3.4:5678" and "[::1]:5678" carry a port; bare IPv6 does not.
+	private static String stripPort(String address) {
+		if (address.startsWith("[")) {
+			int end = address.indexOf(']');
+			return (end == -1) ? address : address.substring(1, end);
+		}
+		int colon = address.indexOf(':');
+		if (colon != -1 && colon == address.lastIndexOf(':')) {
+			return address.substring(0, colon);
+		}
+		return address;
+	}
+
+	private static boolean inRange(byte[] address, byte[] network, int prefix) {
+		if (address.length != network.length) {
+			return false;
+		}
+		int fullBytes = prefix / 8;
+		for (int i = 0; i < fullBytes; i++) {
+			if (address[i] != network[i]) {
+				return false;
+			}
+		}
+		int remainingBits = prefix % 8;
+		if (remainingBits == 0) {
+			return true;
+		}
+		int mask = (0xFF << (8 - remainingBits)) & 0xFF;
+		return (address[fullBytes] & mask) == (network[fullBytes] & mask);
+	}
+
+	private boolean accept(String token) {
+		if (peekIs(token)) {
+			position++;
+			return true;
+		}
+		return false;
+	}
+
+	private boolean peekIs(String token) {
+		return position < tokens.size() && tokens.get(position).equalsIgnoreCase(token);
+	}
+
+	private static int indexOfAny(String s, char a, char b) {
+		for (int i = 0; i < s.length(); i++) {
+			if (s.charAt(i) == a || s.charAt(i) == b) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static List<String> tokenize(String expression) {
+		List<String> result = new ArrayList<>();
+		StringBuilder current = new StringBuilder();
+		boolean inRegex = false;
+		for (int i = 0; i < expression.length(); i++) {
+			char c = expression.charAt(i);
+			// A /regex/ value is kept whole, including spaces and parentheses.
+			if (inRegex || (c == '/' && current.length() > 0 && current.charAt(current.length() - 1) == ':')) {
+				inRegex = (c != '/') || !inRegex;
+				current.append(c);
+			} else if (Character.isWhitespace(c) || c == '(' || c == ')') {
+				if (current.length() > 0) {
+					result.add(current.toString());
+					current.setLength(0);
+				}
+				if (c == '(' || c == ')') {
+					result.add(String.valueOf(c));
+				}
+			} else {
+				current.append(c);
+			}
+		}
+		if (current.length() > 0) {
+			result.add(current.toString());
+		}
+		return result;
+	}
+}
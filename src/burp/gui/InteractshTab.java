@@ -13,12 +13,21 @@ import java.awt.Toolkit;
 import java.awt.datatransfer.StringSelection;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.BitSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
 
 import javax.swing.Box;
 import javax.swing.BoxLayout;
@@ -37,34 +46,52 @@ import javax.swing.JTable;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.JToggleButton;
-import javax.swing.RowFilter;
-import javax.swing.RowSorter;
-import javax.swing.SortOrder;
 import javax.swing.SpringLayout;
-import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingConstants;
+import javax.swing.Timer;
 import javax.swing.UIManager;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.event.HyperlinkEvent;
 import javax.swing.table.AbstractTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.JTableHeader;
+import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableColumn;
 import javax.swing.table.TableModel;
-import javax.swing.table.TableRowSorter;
 
 import burp.api.montoya.MontoyaApi;
 import burp.api.montoya.ui.editor.HttpRequestEditor;
 import burp.api.montoya.ui.editor.HttpResponseEditor;
 import burp.gui.ToastNotification.MessageType;
 import burp.listeners.InteractshListener;
+import burp.scanner.InteractshScanCheck;
 import interactsh.InteractshEntry;
+import interactsh.Metrics;
+import interactsh.UnreadCounter;
+import interactsh.store.Aggregator;
+import interactsh.store.InteractionJournal;
+import interactsh.store.InteractionStore;
+import interactsh.store.SearchIndex;
 import layout.SpringUtilities;
 import lombok.Getter;
 
 public class InteractshTab extends JComponent {
+	private static final int INGEST_INTERVAL_MILLIS = 75;
+	private static final int SEARCH_DELAY_MILLIS = 150;
+	private static final int EXPRESSION_DELAY_MILLIS = 400;
+	private static final int SLIDING_FILTER_INTERVAL_MILLIS = 5000;
+	private static final String EXPRESSION_HELP = "<html>Filter expression, e.g. "
+			+ "<code>protocol:dns and qtype:A and src:10.0.0.0/8 and time&gt;-1h</code><br>"
+			+ "Fields: protocol, qtype, src (address or CIDR), uid (substring or /regex/), origin, "
+			+ "time&gt; / time&lt; (-30s, -5m, -1h, -2d or ISO-8601)<br>"
+			+ "Combine with and, or, not and parentheses</html>";
+
 	private final MontoyaApi api;
 
 	private JTabbedPane mainPane;
+	private MetricsPanel metricsPanel;
 	private JSplitPane splitPane;
 	private JScrollPane scrollPane;
 	private JSplitPane tableSplitPane;
@@ -81,9 +108,40 @@ public class InteractshTab extends JComponent {
 	private static JTextField pollText;
 	private static JCheckBox tlsBox;
 	private static JComboBox<String> aesModeBox;
+	private static JComboBox<String> keySizeBox;
 	private static JCheckBox debugLoggingBox;
-
-	private final List<InteractshEntry> log = new ArrayList<>();
+	private static JCheckBox batchPollingBox;
+	private static JComboBox<String> transportBox;
+	private static JCheckBox adaptivePollingBox;
+	private static JTextField minPollText;
+	private static JTextField maxPollText;
+	private static JComboBox<String> receiveModeBox;
+	private static JTextField storeMaxEntriesText;
+	private static JTextField storeMaxMegabytesText;
+	private static JCheckBox journalBox;
+	private static JCheckBox resumeSessionBox;
+	private static JCheckBox aggregateBox;
+	private static JTextField aggregateWindowText;
+	private static JTextField intruderPayloadsText;
+	private static JCheckBox scanCheckBox;
+	private static JTextField scanTtlText;
+
+	private final InteractionStore log = new InteractionStore();
+	private final InteractionJournal journal;
+	private final Queue<InteractshEntry> pendingEntries = new ConcurrentLinkedQueue<>();
+	private final UnreadCounter unreadCounter = new UnreadCounter();
+	private final Aggregator aggregator = new Aggregator();
+	private final Timer ingestTimer;
+	private final SearchIndex searchIndex;
+	private final Timer searchTimer;
+	private JTextField searchField;
+	private String searchQuery;
+	private final ExecutorService filterWorker;
+	private final Timer expressionTimer;
+	// Re-applies an expression with a relative time, so old rows drop out of view.
+	private final Timer slidingFilterTimer;
+	private JTextField expressionField;
+	private volatile long filterGeneration = 0;
 	private InteractshListener listener;
 
 	private HttpRequestEditor requestViewer;
@@ -95,7 +153,20 @@ public class InteractshTab extends JComponent {
 
 	public InteractshTab(MontoyaApi api) {
 		this.api = api;
-		this.listener = new InteractshListener(
+		this.journal = new InteractionJournal(api.persistence().extensionData());
+		this.searchIndex = new SearchIndex(
+				range -> SwingUtilities.invokeLater(() -> searchIndexed(range[0], range[1])));
+		this.searchTimer = new Timer(SEARCH_DELAY_MILLIS, e -> applySearch());
+		this.searchTimer.setRepeats(false);
+		this.expressionTimer = new Timer(EXPRESSION_DELAY_MILLIS, e -> applyExpression());
+		this.expressionTimer.setRepeats(false);
+		this.slidingFilterTimer = new Timer(SLIDING_FILTER_INTERVAL_MILLIS, e -> applyExpression());
+		this.filterWorker = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "interactsh-filter");
+			t.setDaemon(true);
+			return t;
+		});
+		this.listener = new InteractshListener(true,
 				newUrl -> ToastNotification.showToast("✓ Interactsh session ready.", MessageType.SUCCESS),
 				errorMsg -> ToastNotification.showToast("❌ " + errorMsg, MessageType.ERROR));
 
@@ -127,19 +198,28 @@ public class InteractshTab extends JComponent {
 		logTable = new Table(logTableModel);
 		tableSplitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT);
 
-		TableRowSorter<TableModel> sorter = new TableRowSorter<>(logTableModel);
-		logTable.setRowSorter(sorter);
-
-		List<RowSorter.SortKey> sortKeys = new ArrayList<>();
-		sortKeys.add(new RowSorter.SortKey(LogTable.Column.ID.ordinal(), SortOrder.DESCENDING));
-		sorter.setSortKeys(sortKeys);
-
-		sorter.setComparator(LogTable.Column.TYPE.ordinal(), Comparator.naturalOrder());
-		sorter.setComparator(LogTable.Column.TIME.ordinal(), Comparator.naturalOrder());
-
 		JTableHeader header = logTable.getTableHeader();
 		((DefaultTableCellRenderer) header.getDefaultRenderer())
 				.setHorizontalAlignment(SwingConstants.LEFT);
+		TableCellRenderer headerRenderer = header.getDefaultRenderer();
+		header.setDefaultRenderer((table, value, isSelected, hasFocus, row, column) -> {
+			Component c = headerRenderer.getTableCellRendererComponent(table, value, isSelected, hasFocus,
+					row, column);
+			if (c instanceof JLabel label) {
+				label.setIcon(logTableModel.sortIcon(table.convertColumnIndexToModel(column)));
+			}
+			return c;
+		});
+		header.addMouseListener(new java.awt.event.MouseAdapter() {
+			@Override
+			public void mouseClicked(java.awt.event.MouseEvent e) {
+				int column = header.columnAtPoint(e.getPoint());
+				if (column != -1) {
+					logTableModel.sortBy(LogTable.Column.values()[logTable.convertColumnIndexToModel(column)]);
+					header.repaint();
+				}
+			}
+		});
 
 		for (LogTable.Column col : LogTable.Column.values()) {
 			TableColumn tableColumn = logTable.getColumnModel().getColumn(col.ordinal());
@@ -225,7 +305,7 @@ public class InteractshTab extends JComponent {
 			}
 		});
 		refreshButton.addActionListener(e -> {
-			if (this.listener.pollNowAll()) {
+			if (this.listener.pollNow()) {
 				ToastNotification.showToast("Session refreshed.", MessageType.INFO);
 			} else {
 				ToastNotification.showToast("❌ Failed to refresh session.", MessageType.ERROR);
@@ -255,12 +335,7 @@ public class InteractshTab extends JComponent {
 			JToggleButton filterButton = new JToggleButton(protocol);
 			filterButton.addActionListener(e -> {
 				String selectedProtocol = filterButton.getText();
-				if ("All".equals(selectedProtocol)) {
-					sorter.setRowFilter(null);
-				} else {
-					sorter.setRowFilter(RowFilter.regexFilter("(?i)" + selectedProtocol,
-							LogTable.Column.TYPE.ordinal()));
-				}
+				logTableModel.filterProtocol("All".equals(selectedProtocol) ? null : selectedProtocol);
 			});
 
 			filterGroup.add(filterButton);
@@ -271,14 +346,67 @@ public class InteractshTab extends JComponent {
 			}
 		}
 
+		filterPanel.add(Box.createHorizontalStrut(20));
+		JLabel searchLabel = new JLabel("Search:");
+		filterPanel.add(searchLabel);
+		searchField = new JTextField(24);
+		searchField.setToolTipText(
+				"Matches unique IDs, source addresses, DNS names, HTTP requests and SMTP content");
+		searchField.getDocument().addDocumentListener(new DocumentListener() {
+			@Override
+			public void insertUpdate(DocumentEvent e) {
+				searchTimer.restart();
+			}
+
+			@Override
+			public void removeUpdate(DocumentEvent e) {
+				searchTimer.restart();
+			}
+
+			@Override
+			public void changedUpdate(DocumentEvent e) {
+				searchTimer.restart();
+			}
+		});
+		filterPanel.add(searchField);
+
+		JPanel expressionPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+		expressionPanel.add(new JLabel("Expression:"));
+		expressionField = new JTextField(48);
+		expressionField.setToolTipText(EXPRESSION_HELP);
+		expressionField.addActionListener(e -> {
+			expressionTimer.stop();
+			applyExpression();
+		});
+		expressionField.getDocument().addDocumentListener(new DocumentListener() {
+			@Override
+			public void insertUpdate(DocumentEvent e) {
+				expressionTimer.restart();
+			}
+
+			@Override
+			public void removeUpdate(DocumentEvent e) {
+				expressionTimer.restart();
+			}
+
+			@Override
+			public void changedUpdate(DocumentEvent e) {
+				expressionTimer.restart();
+			}
+		});
+		expressionPanel.add(expressionField);
+
 		mainTopPanel.add(controlsPanel);
 		mainTopPanel.add(filterPanel);
+		mainTopPanel.add(expressionPanel);
 		splitPane.setTopComponent(mainTopPanel);
 
 		JPanel configPanel = new JPanel();
 		configPanel.setLayout(new BoxLayout(configPanel, BoxLayout.Y_AXIS));
 		JPanel subConfigPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
 		mainPane.addTab("Configuration", configPanel);
+		metricsPanel = new MetricsPanel();
+		mainPane.addTab("Metrics", metricsPanel);
 		configPanel.add(subConfigPanel);
 		JPanel innerConfig = new JPanel();
 		subConfigPanel.setMaximumSize(new Dimension(configPanel.getMaximumSize().width, 250));
@@ -293,8 +421,36 @@ public class InteractshTab extends JComponent {
 		tlsBox.setSelected(Config.getScheme());
 		aesModeBox = new JComboBox<>(new String[] { "AUTO", "CTR", "CFB" });
 		aesModeBox.setSelectedItem(Config.getAesMode());
+		keySizeBox = new JComboBox<>(new String[] { "2048", "3072", "4096" });
+		keySizeBox.setSelectedItem(Integer.toString(Config.getKeySize()));
 		debugLoggingBox = new JCheckBox("", false);
 		debugLoggingBox.setSelected(Config.isDebugEnabled());
+		batchPollingBox = new JCheckBox("", false);
+		batchPollingBox.setSelected(Config.isBatchPollingEnabled());
+		transportBox = new JComboBox<>(new String[] { "BURP", "KEEP_ALIVE" });
+		transportBox.setSelectedItem(Config.getTransport());
+		adaptivePollingBox = new JCheckBox("", false);
+		adaptivePollingBox.setSelected(Config.isAdaptivePollingEnabled());
+		minPollText = new JTextField(Integer.toString(Config.getMinPollInterval()), 20);
+		maxPollText = new JTextField(Integer.toString(Config.getMaxPollInterval()), 20);
+		receiveModeBox = new JComboBox<>(new String[] { "INTERVAL", "LONG_POLL" });
+		receiveModeBox.setSelectedItem(Config.getReceiveMode());
+		storeMaxEntriesText = new JTextField(Integer.toString(Config.getStoreMaxEntries()), 20);
+		storeMaxMegabytesText = new JTextField(Integer.toString(Config.getStoreMaxMegabytes()), 20);
+		journalBox = new JCheckBox("", false);
+		journalBox.setSelected(Config.isJournalEnabled());
+		resumeSessionBox = new JCheckBox("", false);
+		resumeSessionBox.setSelected(Config.isResumeSessionEnabled());
+		resumeSessionBox.setToolTipText("<html>Stores the session in the project file. The private key is encrypted "
+				+ "with a key kept in this<br>Burp installation's preferences, so other installations cannot resume "
+				+ "the session.</html>");
+		aggregateBox = new JCheckBox("", false);
+		aggregateBox.setSelected(Config.isAggregationEnabled());
+		aggregateWindowText = new JTextField(Integer.toString(Config.getAggregationWindow()), 20);
+		intruderPayloadsText = new JTextField(Integer.toString(Config.getIntruderPayloadCount()), 20);
+		scanCheckBox = new JCheckBox("", false);
+		scanCheckBox.setSelected(Config.isScanCheckEnabled());
+		scanTtlText = new JTextField(Integer.toString(Config.getScanPayloadTtl()), 20);
 
 		innerConfig.add(new JLabel("Server: ", SwingConstants.TRAILING));
 		innerConfig.add(serverText);
@@ -304,12 +460,44 @@ public class InteractshTab extends JComponent {
 		innerConfig.add(authText);
 		innerConfig.add(new JLabel("Poll Interval (sec): ", SwingConstants.TRAILING));
 		innerConfig.add(pollText);
+		innerConfig.add(new JLabel("Receive Mode: ", SwingConstants.TRAILING));
+		innerConfig.add(receiveModeBox);
+		innerConfig.add(new JLabel("Adaptive Polling: ", SwingConstants.TRAILING));
+		innerConfig.add(adaptivePollingBox);
+		innerConfig.add(new JLabel("Min Poll Interval (sec): ", SwingConstants.TRAILING));
+		innerConfig.add(minPollText);
+		innerConfig.add(new JLabel("Max Poll Interval (sec): ", SwingConstants.TRAILING));
+		innerConfig.add(maxPollText);
 		innerConfig.add(new JLabel("TLS: ", SwingConstants.TRAILING));
 		innerConfig.add(tlsBox);
 		innerConfig.add(new JLabel("AES Mode: ", SwingConstants.TRAILING));
 		innerConfig.add(aesModeBox);
+		innerConfig.add(new JLabel("RSA Key Size: ", SwingConstants.TRAILING));
+		innerConfig.add(keySizeBox);
+		innerConfig.add(new JLabel("In-Memory Interactions: ", SwingConstants.TRAILING));
+		innerConfig.add(storeMaxEntriesText);
+		innerConfig.add(new JLabel("In-Memory Payloads (MB): ", SwingConstants.TRAILING));
+		innerConfig.add(storeMaxMegabytesText);
+		innerConfig.add(new JLabel("Save Interactions in Project: ", SwingConstants.TRAILING));
+		innerConfig.add(journalBox);
+		innerConfig.add(new JLabel("Aggregate Repeated Interactions: ", SwingConstants.TRAILING));
+		innerConfig.add(aggregateBox);
+		innerConfig.add(new JLabel("Aggregation Window (sec): ", SwingConstants.TRAILING));
+		innerConfig.add(aggregateWindowText);
+		innerConfig.add(new JLabel("Intruder Payload Count: ", SwingConstants.TRAILING));
+		innerConfig.add(intruderPayloadsText);
+		innerConfig.add(new JLabel("Active Scan Check: ", SwingConstants.TRAILING));
+		innerConfig.add(scanCheckBox);
+		innerConfig.add(new JLabel("Scan Payload Lifetime (min): ", SwingConstants.TRAILING));
+		innerConfig.add(scanTtlText);
+		innerConfig.add(new JLabel("Resume Session on Reload: ", SwingConstants.TRAILING));
+		innerConfig.add(resumeSessionBox);
 		innerConfig.add(new JLabel("Debug Logging: ", SwingConstants.TRAILING));
 		innerConfig.add(debugLoggingBox);
+		innerConfig.add(new JLabel("Batch Polling: ", SwingConstants.TRAILING));
+		innerConfig.add(batchPollingBox);
+		innerConfig.add(new JLabel("HTTP Transport: ", SwingConstants.TRAILING));
+		innerConfig.add(transportBox);
 
 		JButton updateConfigButton = new JButton("Update Settings");
 		updateConfigButton.addActionListener(e -> {
@@ -317,17 +505,21 @@ public class InteractshTab extends JComponent {
 			String oldPort = burp.gui.Config.getPort();
 			String oldAuth = burp.gui.Config.getAuth();
 			Boolean oldTls = burp.gui.Config.getScheme();
+			String oldTransport = burp.gui.Config.getTransport();
 
 			String newServer = serverText.getText();
 			String newPort = portText.getText();
 			String newAuth = authText.getText();
 			Boolean newTls = tlsBox.isSelected();
+			String newTransport = (String) transportBox.getSelectedItem();
 
 			burp.gui.Config.updateConfig();
 			pollField.setText(pollText.getText());
+			interactsh.KeyPairPool.prefill(burp.gui.Config.getKeySize());
 
 			boolean criticalSettingChanged = !oldServer.equals(newServer)
-					|| !oldPort.equals(newPort) || !oldAuth.equals(newAuth) || oldTls != newTls;
+					|| !oldPort.equals(newPort) || !oldAuth.equals(newAuth) || oldTls != newTls
+					|| !oldTransport.equals(newTransport);
 
 			if (criticalSettingChanged) {
 				burp.BurpExtender.debugLog("Server configuration changed. Creating new Interact.sh session.");
@@ -343,7 +535,7 @@ public class InteractshTab extends JComponent {
 		innerConfig.add(updateConfigButton);
 		innerConfig.add(new JPanel());
 
-		SpringUtilities.makeCompactGrid(innerConfig, 8, 2, // rows, cols
+		SpringUtilities.makeCompactGrid(innerConfig, 24, 2, // rows, cols
 				6, 6, // initX, initY
 				6, 6); // xPad, yPad
 
@@ -359,6 +551,15 @@ public class InteractshTab extends JComponent {
 		configPanel.add(documentationPanel);
 
 		add(mainPane);
+
+		unreadCounter.addListener(this::updateUnreadCount);
+		if (Config.isJournalEnabled()) {
+			journal.loadAsync(restored -> SwingUtilities.invokeLater(() -> addRestored(restored)));
+		}
+
+		ingestTimer = new Timer(INGEST_INTERVAL_MILLIS, e -> drainPendingEntries());
+		ingestTimer.setCoalesce(true);
+		ingestTimer.start();
 	}
 
 	public InteractshListener getListener() {
@@ -405,6 +606,14 @@ public class InteractshTab extends JComponent {
 		tlsBox.setSelected(value);
 	}
 
+	public static String getKeySizeText() {
+		return (String) keySizeBox.getSelectedItem();
+	}
+
+	public static void setKeySizeText(String bits) {
+		keySizeBox.setSelectedItem(bits);
+	}
+
 	public static String getAesModeText() {
 		return (String) aesModeBox.getSelectedItem();
 	}
@@ -421,6 +630,126 @@ public class InteractshTab extends JComponent {
 		debugLoggingBox.setSelected(value);
 	}
 
+	public static String getBatchPolling() {
+		return Boolean.toString(batchPollingBox.isSelected());
+	}
+
+	public static void setBatchPolling(boolean value) {
+		batchPollingBox.setSelected(value);
+	}
+
+	public static String getAdaptivePolling() {
+		return Boolean.toString(adaptivePollingBox.isSelected());
+	}
+
+	public static void setAdaptivePolling(boolean value) {
+		adaptivePollingBox.setSelected(value);
+	}
+
+	public static String getMinPollText() {
+		return minPollText.getText();
+	}
+
+	public static void setMinPollText(String text) {
+		minPollText.setText(text);
+	}
+
+	public static String getMaxPollText() {
+		return maxPollText.getText();
+	}
+
+	public static void setMaxPollText(String text) {
+		maxPollText.setText(text);
+	}
+
+	public static String getReceiveModeText() {
+		return (String) receiveModeBox.getSelectedItem();
+	}
+
+	public static void setReceiveModeText(String mode) {
+		receiveModeBox.setSelectedItem(mode);
+	}
+
+	public static String getStoreMaxEntriesText() {
+		return storeMaxEntriesText.getText();
+	}
+
+	public static void setStoreMaxEntriesText(String text) {
+		storeMaxEntriesText.setText(text);
+	}
+
+	public static String getStoreMaxMegabytesText() {
+		return storeMaxMegabytesText.getText();
+	}
+
+	public static void setStoreMaxMegabytesText(String text) {
+		storeMaxMegabytesText.setText(text);
+	}
+
+	public static String getJournal() {
+		return Boolean.toString(journalBox.isSelected());
+	}
+
+	public static void setJournal(boolean value) {
+		journalBox.setSelected(value);
+	}
+
+	public static String getAggregate() {
+		return Boolean.toString(aggregateBox.isSelected());
+	}
+
+	public static void setAggregate(boolean value) {
+		aggregateBox.setSelected(value);
+	}
+
+	public static String getAggregateWindowText() {
+		return aggregateWindowText.getText();
+	}
+
+	public static void setAggregateWindowText(String text) {
+		aggregateWindowText.setText(text);
+	}
+
+	public static String getIntruderPayloadsText() {
+		return intruderPayloadsText.getText();
+	}
+
+	public static void setIntruderPayloadsText(String text) {
+		intruderPayloadsText.setText(text);
+	}
+
+	public static String getScanCheck() {
+		return Boolean.toString(scanCheckBox.isSelected());
+	}
+
+	public static void setScanCheck(boolean value) {
+		scanCheckBox.setSelected(value);
+	}
+
+	public static String getScanTtlText() {
+		return scanTtlText.getText();
+	}
+
+	public static void setScanTtlText(String text) {
+		scanTtlText.setText(text);
+	}
+
+	public static String getResumeSession() {
+		return Boolean.toString(resumeSessionBox.isSelected());
+	}
+
+	public static void setResumeSession(boolean value) {
+		resumeSessionBox.setSelected(value);
+	}
+
+	public static String getTransportText() {
+		return (String) transportBox.getSelectedItem();
+	}
+
+	public static void setTransportText(String transport) {
+		transportBox.setSelectedItem(transport);
+	}
+
 	private JEditorPane createClickableLink(String html) {
 		JEditorPane editorPane = new JEditorPane("text/html", html);
 		editorPane.setEditable(false);
@@ -456,12 +785,15 @@ public class InteractshTab extends JComponent {
 		return editorPane;
 	}
 
-	private void updateUnreadCount() {
+	private void updateUnreadCount(int unreadCount) {
+		if (!SwingUtilities.isEventDispatchThread()) {
+			SwingUtilities.invokeLater(() -> updateUnreadCount(unreadCounter.get()));
+			return;
+		}
 		Container parent = getParent();
 		if (parent instanceof JTabbedPane tabbedPane) {
 			int tabIndex = tabbedPane.indexOfComponent(this);
 			if (tabIndex != -1) {
-				long unreadCount = log.stream().filter(e -> !e.isRead()).count();
 				String newTitle = "Interactsh";
 				if (unreadCount > 0) {
 					newTitle += " (" + unreadCount + ")";
@@ -472,24 +804,215 @@ public class InteractshTab extends JComponent {
 	}
 
 	public void addToTable(InteractshEntry i) {
-		SwingUtilities.invokeLater(() -> {
-			synchronized (log) {
-				log.add(i);
-				int rowIndex = log.size() - 1;
-				logTableModel.fireTableRowsInserted(rowIndex, rowIndex);
-				updateUnreadCount();
+		pendingEntries.add(i);
+		Metrics.queued(1);
+	}
+
+	public void addToTable(List<InteractshEntry> entries) {
+		pendingEntries.addAll(entries);
+		Metrics.queued(entries.size());
+	}
+
+	/**
+	 * Moves everything queued since the last tick into the table with a single
+	 * ranged insert and one unread count refresh. Runs on the EDT.
+	 */
+	private void drainPendingEntries() {
+		if (pendingEntries.isEmpty()) {
+			return;
+		}
+		List<InteractshEntry> batch = new ArrayList<>(pendingEntries.size());
+		InteractshEntry entry;
+		while ((entry = pendingEntries.poll()) != null) {
+			batch.add(entry);
+		}
+		Metrics.drained(batch.size());
+		Set<InteractshEntry> groups = new HashSet<>();
+		if (Config.isAggregationEnabled()) {
+			Duration window = Duration.ofSeconds(Config.getAggregationWindow());
+			List<InteractshEntry> newRows = new ArrayList<>(batch.size());
+			for (InteractshEntry e : batch) {
+				InteractshEntry group;
+				try {
+					group = aggregator.merge(e, window);
+				} catch (RuntimeException ex) {
+					// E.g. the event of the entry could not be read; show it as its own row.
+					api.logging().logToError("Unable to group interaction " + e.uid + ": " + ex);
+					group = null;
+				}
+				if (group == null) {
+					newRows.add(e);
+				} else {
+					groups.add(group);
+				}
+			}
+			batch = newRows;
+		}
+		if (!batch.isEmpty()) {
+			InteractshScanCheck scanCheck = burp.BurpExtender.scanCheck;
+			if (burp.BurpExtender.payloads != null) {
+				for (InteractshEntry e : batch) {
+					String origin = burp.BurpExtender.payloads.lookup(e.uid);
+					if (origin == null && scanCheck != null) {
+						origin = scanCheck.lookupOrigin(e.uid);
+					}
+					e.setOrigin(origin);
+				}
 			}
+			int firstIndex = log.size();
+			log.addAll(batch);
+			logTableModel.rowsAdded(firstIndex, batch.size());
+			searchIndex.addAll(firstIndex, batch);
+			unreadCounter.trackAll(batch);
+			if (Config.isJournalEnabled()) {
+				journal.append(batch);
+			}
+		}
+		if (!groups.isEmpty()) {
+			logTableModel.groupsUpdated();
+			if (Config.isJournalEnabled()) {
+				journal.update(groups);
+			}
+		}
+	}
+
+	/**
+	 * Adds the interactions restored from the journal in one step. They are
+	 * never aggregated and have no origin in this Burp session, so they skip
+	 * the ingest path and their rows are sorted in bulk. Runs on the EDT.
+	 */
+	private void addRestored(List<InteractshEntry> restored) {
+		int firstIndex = log.size();
+		log.addAll(restored);
+		logTableModel.rowsRestored(firstIndex, restored.size());
+		searchIndex.addAll(firstIndex, restored);
+		unreadCounter.trackAll(restored);
+	}
+
+	/**
+	 * Runs the query in the search box against the search index. Runs on the EDT.
+	 */
+	private void applySearch() {
+		String query = searchField.getText().trim();
+		if (query.isEmpty()) {
+			searchQuery = null;
+			logTableModel.search(null);
+			return;
+		}
+		searchQuery = query;
+		long started = System.nanoTime();
+		BitSet matches = searchIndex.search(query);
+		logTableModel.search(matches);
+		burp.BurpExtender.debugLog("Search for '" + query + "' matched " + matches.cardinality()
+				+ " interactions in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+	}
+
+	/**
+	 * Shows rows of a newly indexed range that match the active search.
+	 */
+	private void searchIndexed(int from, int to) {
+		if (searchQuery == null) {
+			return;
+		}
+		BitSet matches = searchIndex.search(searchQuery, from);
+		int limit = Math.min(to, log.size());
+		for (int i = matches.nextSetBit(from); i >= 0 && i < limit; i = matches.nextSetBit(i + 1)) {
+			logTableModel.searchMatched(i);
+		}
+	}
+
+	/**
+	 * Compiles the filter expression and evaluates it over the log on a
+	 * background thread; the view switches over once the result is ready.
+	 */
+	private void applyExpression() {
+		String expression = expressionField.getText().trim();
+		long generation = ++filterGeneration;
+		if (expression.isEmpty()) {
+			slidingFilterTimer.stop();
+			markExpression(null);
+			logTableModel.filter(null, null);
+			return;
+		}
+
+		Predicate<InteractshEntry> predicate;
+		try {
+			predicate = EntryFilter.compile(expression);
+		} catch (IllegalArgumentException ex) {
+			slidingFilterTimer.stop();
+			markExpression(ex.getMessage());
+			return;
+		}
+		markExpression(null);
+		if (!EntryFilter.slides(expression)) {
+			slidingFilterTimer.stop();
+		} else if (!slidingFilterTimer.isRunning()) {
+			slidingFilterTimer.start();
+		}
+
+		int count = log.size();
+		filterWorker.submit(() -> {
+			long started = System.nanoTime();
+			BitSet matches = new BitSet(count);
+			for (int i = 0; i < count; i++) {
+				if (generation != filterGeneration) {
+					return;
+				}
+				if (test(predicate, i)) {
+					matches.set(i);
+				}
+			}
+			long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+			SwingUtilities.invokeLater(() -> {
+				if (generation != filterGeneration || count > log.size()) {
+					return;
+				}
+				// Rows added while the filter ran.
+				for (int i = count; i < log.size(); i++) {
+					if (test(predicate, i)) {
+						matches.set(i);
+					}
+				}
+				logTableModel.filter(i -> test(predicate, i), matches);
+				burp.BurpExtender.debugLog("Filter '" + expression + "' matched " + matches.cardinality() + " of "
+						+ count + " interactions in " + elapsedMillis + " ms");
+			});
 		});
 	}
 
+	private boolean test(Predicate<InteractshEntry> predicate, int index) {
+		try {
+			return predicate.test(log.get(index));
+		} catch (RuntimeException ex) {
+			return false;
+		}
+	}
+
+	private void markExpression(String error) {
+		if (error == null) {
+			expressionField.setForeground(UIManager.getColor("TextField.foreground"));
+			expressionField.setToolTipText(EXPRESSION_HELP);
+		} else {
+			expressionField.setForeground(Color.RED);
+			expressionField.setToolTipText(error);
+		}
+	}
+
 	private void clearLog() {
-		synchronized (log) {
-			log.clear();
-			requestViewer.setRequest(null);
-			responseViewer.setResponse(null);
-			genericDetailsViewer.setText("");
-			logTableModel.fireTableDataChanged();
-			updateUnreadCount();
+		log.clear();
+		aggregator.clear();
+		searchIndex.clear();
+		logTableModel.clear();
+		requestViewer.setRequest(null);
+		responseViewer.setResponse(null);
+		genericDetailsViewer.setText("");
+		unreadCounter.reset();
+		if (Config.isJournalEnabled()) {
+			journal.clear();
+		}
+		if (!expressionField.getText().trim().isEmpty()) {
+			applyExpression();
 		}
 	}
 
@@ -503,32 +1026,30 @@ public class InteractshTab extends JComponent {
 		public void changeSelection(int row, int col, boolean toggle, boolean extend) {
 			super.changeSelection(row, col, toggle, extend);
 
-			int modelRow = convertRowIndexToModel(row);
-			if (modelRow == -1) {
+			if (row < 0 || row >= logTableModel.getRowCount()) {
 				return;
 			}
 
-			InteractshEntry selectedEntry = log.get(modelRow);
+			InteractshEntry selectedEntry = logTableModel.entryAt(row);
 
 			if (!selectedEntry.isRead()) {
 				selectedEntry.setRead(true);
-				logTableModel.fireTableRowsUpdated(modelRow, modelRow);
-				updateUnreadCount();
+				logTableModel.fireTableRowsUpdated(row, row);
 			}
 
 			if (selectedEntry.protocol.equals("http") || selectedEntry.protocol.equals("https")) {
 				resultsLayout.show(resultsCardPanel, "HTTP_VIEW");
-				if (selectedEntry.httpRequest != null) {
-					requestViewer.setRequest(selectedEntry.httpRequest);
-					responseViewer.setResponse(selectedEntry.httpResponse);
+				if (selectedEntry.getHttpRequest() != null) {
+					requestViewer.setRequest(selectedEntry.getHttpRequest());
+					responseViewer.setResponse(selectedEntry.getHttpResponse());
 				} else {
 					resultsLayout.show(resultsCardPanel, "GENERIC_VIEW");
-					genericDetailsViewer.setText(selectedEntry.details);
+					genericDetailsViewer.setText(selectedEntry.getDetails());
 					genericDetailsViewer.setCaretPosition(0);
 				}
 			} else {
 				resultsLayout.show(resultsCardPanel, "GENERIC_VIEW");
-				genericDetailsViewer.setText(selectedEntry.details);
+				genericDetailsViewer.setText(selectedEntry.getDetails());
 				genericDetailsViewer.setCaretPosition(0);
 			}
 
@@ -562,8 +1083,7 @@ public class InteractshTab extends JComponent {
 			}
 
 			if (!isSelected) {
-				int modelRow = table.convertRowIndexToModel(row);
-				InteractshEntry entry = log.get(modelRow);
+				InteractshEntry entry = logTableModel.entryAt(row);
 				c.setFont(entry.isRead() ? plainFont : boldFont);
 			}
 
@@ -573,13 +1093,23 @@ public class InteractshTab extends JComponent {
 		}
 	}
 
+	/**
+	 * Table model over the interaction store. View rows are resolved through a
+	 * {@link RowIndex} that is kept sorted and filtered as rows arrive.
+	 */
 	private class LogTable extends AbstractTableModel {
+		// Larger batches (e.g. a restored journal) repaint the whole table once.
+		private static final int ROW_EVENT_LIMIT = 256;
+
 		public enum Column {
 			ID("ID", Integer.class, 50, 80), ENTRY("Entry", String.class, 120, -1), TYPE("Type",
 					String.class, 70, 100),
 			SOURCE_IP("Source IP address", String.class, 120,
 					-1),
-			TIME("Time", Instant.class, 150, -1);
+			TIME("Time", Instant.class, 150, -1),
+			HITS("Hits", Integer.class, 50, 70),
+			LAST_SEEN("Last Seen", Instant.class, 150, -1),
+			ORIGIN("Origin", String.class, 200, -1);
 
 			@Getter
 			private final String name;
@@ -598,9 +1128,156 @@ public class InteractshTab extends JComponent {
 			}
 		}
 
+		private final RowIndex rows = new RowIndex(i -> log.get(i).protocol, comparator(Column.ID));
+		private Column sortColumn = Column.ID;
+
+		LogTable() {
+			rows.setAscending(false);
+		}
+
+		InteractshEntry entryAt(int viewRow) {
+			return log.get(rows.modelIndex(viewRow));
+		}
+
+		void rowsAdded(int firstIndex, int count) {
+			if (count > ROW_EVENT_LIMIT) {
+				int selected = selectedModelIndex();
+				for (int i = firstIndex; i < firstIndex + count; i++) {
+					rows.insert(i);
+				}
+				fireTableDataChanged();
+				restoreSelection(selected);
+				return;
+			}
+			for (int i = firstIndex; i < firstIndex + count; i++) {
+				int viewRow = rows.insert(i);
+				if (viewRow != -1) {
+					fireTableRowsInserted(viewRow, viewRow);
+				}
+			}
+		}
+
+		void rowsRestored(int firstIndex, int count) {
+			int selected = selectedModelIndex();
+			rows.insertAll(firstIndex, firstIndex + count);
+			fireTableDataChanged();
+			restoreSelection(selected);
+		}
+
+		void filterProtocol(String protocol) {
+			int selected = selectedModelIndex();
+			rows.setProtocol(protocol);
+			fireTableDataChanged();
+			restoreSelection(selected);
+		}
+
+		/**
+		 * Sorts by a column, or reverses the order when it is already the sort column.
+		 */
+		void sortBy(Column column) {
+			int selected = selectedModelIndex();
+			if (column == sortColumn) {
+				rows.setAscending(!rows.isAscending());
+			} else {
+				sortColumn = column;
+				rows.sortBy(comparator(column));
+				rows.setAscending(true);
+			}
+			fireTableDataChanged();
+			restoreSelection(selected);
+		}
+
+		javax.swing.Icon sortIcon(int columnIndex) {
+			if (columnIndex != sortColumn.ordinal()) {
+				return null;
+			}
+			return UIManager.getIcon(rows.isAscending() ? "Table.ascendingSortIcon" : "Table.descendingSortIcon");
+		}
+
+		void search(BitSet matches) {
+			int selected = selectedModelIndex();
+			rows.setSearch(matches);
+			fireTableDataChanged();
+			restoreSelection(selected);
+		}
+
+		/**
+		 * Repaints after repeated callbacks were merged into existing rows. Only a
+		 * sort on hits or last-seen time can move rows, and then the nearly sorted
+		 * arrays are re-sorted.
+		 */
+		void groupsUpdated() {
+			if (sortColumn == Column.HITS || sortColumn == Column.LAST_SEEN) {
+				int selected = selectedModelIndex();
+				rows.sortBy(comparator(sortColumn));
+				fireTableDataChanged();
+				restoreSelection(selected);
+			} else if (getRowCount() > 0) {
+				fireTableRowsUpdated(0, getRowCount() - 1);
+			}
+		}
+
+		void filter(IntPredicate filter, BitSet matches) {
+			int selected = selectedModelIndex();
+			rows.setFilter(filter, matches);
+			fireTableDataChanged();
+			restoreSelection(selected);
+		}
+
+		void searchMatched(int modelIndex) {
+			int viewRow = rows.addSearchMatch(modelIndex);
+			if (viewRow != -1) {
+				fireTableRowsInserted(viewRow, viewRow);
+			}
+		}
+
+		void clear() {
+			rows.clear();
+			fireTableDataChanged();
+		}
+
+		private int selectedModelIndex() {
+			int viewRow = logTable.getSelectedRow();
+			return (viewRow == -1) ? -1 : rows.modelIndex(viewRow);
+		}
+
+		private void restoreSelection(int modelIndex) {
+			int viewRow = (modelIndex == -1) ? -1 : rows.viewRow(modelIndex);
+			if (viewRow != -1) {
+				logTable.setRowSelectionInterval(viewRow, viewRow);
+			}
+		}
+
+		private RowIndex.IndexComparator comparator(Column column) {
+			switch (column) {
+				case ENTRY:
+					return (a, b) -> log.get(a).uid.compareTo(log.get(b).uid);
+				case TYPE:
+					return (a, b) -> log.get(a).protocol.compareTo(log.get(b).protocol);
+				case SOURCE_IP:
+					return (a, b) -> log.get(a).address.compareTo(log.get(b).address);
+				case TIME:
+					return (a, b) -> log.get(a).timestamp.compareTo(log.get(b).timestamp);
+				case ORIGIN:
+					return (a, b) -> originOf(a).compareTo(originOf(b));
+				case HITS:
+					return (a, b) -> Integer.compare(log.get(a).getHits(), log.get(b).getHits());
+				case LAST_SEEN:
+					return (a, b) -> log.get(a).getLastSeen().compareTo(log.get(b).getLastSeen());
+				case ID:
+				default:
+					return Integer::compare;
+			}
+		}
+
+		private String originOf(int modelIndex) {
+			String origin = log.get(modelIndex).getOrigin();
+			return (origin == null) ? "" : origin;
+		}
+
 		@Override
 		public int getRowCount() {
-			return log.size();
+			return rows.size();
 		}
 
 		@Override
@@ -620,11 +1297,12 @@ public class InteractshTab extends JComponent {
 
 		@Override
 		public Object getValueAt(int rowIndex, int columnIndex) {
-			InteractshEntry ie = log.get(rowIndex);
+			int modelIndex = rows.modelIndex(rowIndex);
+			InteractshEntry ie = log.get(modelIndex);
 
 			switch (Column.values()[columnIndex]) {
 				case ID:
-					return rowIndex + 1;
+					return modelIndex + 1;
 				case ENTRY:
 					return ie.uid;
 				case TYPE:
@@ -633,6 +1311,12 @@ public class InteractshTab extends JComponent {
 					return ie.address;
 				case TIME:
 					return ie.timestamp;
+				case HITS:
+					return ie.getHits();
+				case LAST_SEEN:
+					return ie.getLastSeen();
+				case ORIGIN:
+					return ie.getOrigin();
 				default:
 					return "";
 			}
@@ -640,6 +1324,15 @@ public class InteractshTab extends JComponent {
 	}
 
 	public void cleanup() {
+		ingestTimer.stop();
+		metricsPanel.stop();
+		searchTimer.stop();
+		searchIndex.close();
+		expressionTimer.stop();
+		slidingFilterTimer.stop();
+		filterWorker.shutdownNow();
 		listener.close();
+		log.close();
+		journal.close();
 	}
 }
@@ -0,0 +1,232 @@
+package burp.gui;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.GridLayout;
+import java.awt.Toolkit;
+import java.awt.datatransfer.StringSelection;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JFileChooser;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+
+import burp.gui.ToastNotification.MessageType;
+import interactsh.Metrics;
+
+/**
+ * The "Metrics" tab: per-server poll figures and the global counters from
+ * {@link Metrics}, refreshed once a second while the tab is visible.
+ */
+class MetricsPanel extends JPanel {
+	private static final int REFRESH_MILLIS = 1000;
+	private static final String[] AES_MODES = { "CTR", "CFB", "AUTO" };
+	private static final DateTimeFormatter SINCE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+			.withZone(ZoneId.systemDefault());
+
+	private final HostTableModel hostModel = new HostTableModel();
+	private final JLabel throughputLabel = new JLabel();
+	private final JLabel failuresLabel = new JLabel();
+	private final JLabel registrationsLabel = new JLabel();
+	private final JLabel queueLabel = new JLabel();
+	private final Timer refreshTimer;
+
+	MetricsPanel() {
+		super(new BorderLayout());
+
+		JPanel summary = new JPanel(new GridLayout(0, 1, 0, 4));
+		summary.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+		summary.add(throughputLabel);
+		summary.add(failuresLabel);
+		summary.add(registrationsLabel);
+		summary.add(queueLabel);
+
+		JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEFT));
+		JButton copyButton = new JButton("Copy as JSON");
+		copyButton.addActionListener(e -> copyJson());
+		JButton saveButton = new JButton("Save as JSON...");
+		saveButton.addActionListener(e -> saveJson());
+		JButton resetButton = new JButton("Reset");
+		resetButton.addActionListener(e -> {
+			Metrics.reset();
+			refresh();
+		});
+		buttons.add(copyButton);
+		buttons.add(saveButton);
+		buttons.add(resetButton);
+
+		JPanel top = new JPanel(new BorderLayout());
+		top.add(summary, BorderLayout.CENTER);
+		top.add(buttons, BorderLayout.SOUTH);
+
+		JTable hostTable = new JTable(hostModel);
+		hostTable.setAutoCreateRowSorter(true);
+
+		add(top, BorderLayout.NORTH);
+		add(new JScrollPane(hostTable), BorderLayout.CENTER);
+
+		refreshTimer = new Timer(REFRESH_MILLIS, e -> {
+			if (isShowing()) {
+				refresh();
+			}
+		});
+		refreshTimer.setCoalesce(true);
+		refreshTimer.start();
+		refresh();
+	}
+
+	void refresh() {
+		List<Metrics.Host> hosts = Metrics.getHosts();
+		double recordsPerSecond = 0;
+		long records = 0;
+		long bytes = 0;
+		for (Metrics.Host host : hosts) {
+			recordsPerSecond += host.getRecordsPerSecond();
+			records += host.getRecords();
+			bytes += host.getBytes();
+		}
+
+		throughputLabel.setText(String.format(Locale.ROOT,
+				"Throughput: %.1f records/s (last 10 s), %,d records and %s received since %s", recordsPerSecond,
+				records, formatBytes(bytes), SINCE_FORMAT.format(Instant.ofEpochMilli(Metrics.getResetMillis()))));
+
+		StringBuilder failures = new StringBuilder("Decrypt failures:");
+		for (String mode : AES_MODES) {
+			failures.append(' ').append(mode).append(' ').append(Metrics.getDecryptFailures(mode));
+		}
+		failures.append(", dropped records: ").append(Metrics.getDecodeFailures());
+		failuresLabel.setText(failures.toString());
+
+		registrationsLabel.setText("Registrations: " + Metrics.getRegistrations() + " succeeded, "
+				+ Metrics.getRegistrationFailures() + " failed, " + Metrics.getResumes() + " resume attempts");
+		queueLabel.setText("EDT ingest queue: " + Metrics.getQueueDepth() + " waiting, peak "
+				+ Metrics.getQueuePeak());
+
+		hostModel.setHosts(hosts);
+	}
+
+	void stop() {
+		refreshTimer.stop();
+	}
+
+	private void copyJson() {
+		try {
+			Toolkit.getDefaultToolkit().getSystemClipboard()
+					.setContents(new StringSelection(Metrics.toJson().toString(2)), null);
+			ToastNotification.showToast("Metrics copied to clipboard.", MessageType.SUCCESS);
+		} catch (Exception ex) {
+			ToastNotification.showToast("❌ Could not copy metrics: " + ex.getMessage(), MessageType.ERROR);
+		}
+	}
+
+	private void saveJson() {
+		JFileChooser chooser = new JFileChooser();
+		chooser.setSelectedFile(new File("interactsh-metrics.json"));
+		if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+			return;
+		}
+		try {
+			Files.writeString(chooser.getSelectedFile().toPath(), Metrics.toJson().toString(2),
+					StandardCharsets.UTF_8);
+			ToastNotification.showToast("Metrics saved.", MessageType.SUCCESS);
+		} catch (Exception ex) {
+			ToastNotification.showToast("❌ Could not save metrics: " + ex.getMessage(), MessageType.ERROR);
+		}
+	}
+
+	private static String formatBytes(long bytes) {
+		if (bytes < 1024) {
+			return bytes + " B";
+		}
+		if (bytes < 1024 * 1024) {
+			return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+		}
+		return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024.0));
+	}
+
+	private static class HostTableModel extends AbstractTableModel {
+		private static final String[] COLUMNS = { "Server", "Polls", "Failed", "Mean (ms)", "p50 (ms)",
+				"p95 (ms)", "p99 (ms)", "Max (ms)", "Bytes", "Records", "Records/s" };
+
+		private List<Metrics.Host> hosts = new ArrayList<>();
+
+		void setHosts(List<Metrics.Host> hosts) {
+			this.hosts = hosts;
+			fireTableDataChanged();
+		}
+
+		@Override
+		public int getRowCount() {
+			return hosts.size();
+		}
+
+		@Override
+		public int getColumnCount() {
+			return COLUMNS.length;
+		}
+
+		@Override
+		public String getColumnName(int column) {
+			return COLUMNS[column];
+		}
+
+		@Override
+		public Class<?> getColumnClass(int column) {
+			switch (column) {
+				case 0:
+					return String.class;
+				case 3:
+				case 10:
+					return Double.class;
+				default:
+					return Long.class;
+			}
+		}
+
+		@Override
+		public Object getValueAt(int row, int column) {
+			Metrics.Host host = hosts.get(row);
+			Metrics.Histogram latency = host.getLatency();
+			switch (column) {
+				case 0:
+					return host.getServer();
+				case 1:
+					return host.getPolls();
+				case 2:
+					return host.getPollFailures();
+				case 3:
+					return Math.round(latency.getMean() * 10) / 10.0;
+				case 4:
+					return latency.percentile(50);
+				case 5:
+					return latency.percentile(95);
+				case 6:
+					return latency.percentile(99);
+				case 7:
+					return latency.getMax();
+				case 8:
+					return host.getBytes();
+				case 9:
+					return host.getRecords();
+				case 10:
+					return Math.round(host.getRecordsPerSecond() * 10) / 10.0;
+				default:
+					return "";
+			}
+		}
+	}
+}
@@ -0,0 +1,493 @@
+package burp.gui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * Maps view rows of the log table to model indices without a RowSorter.
+ *
+ * Every protocol keeps its own list of model indices in ascending sort order,
+ * next to one list holding all rows. A new row is placed with a binary search
+ * (appends, the common case when sorting by ID or time, skip even that), and
+ * switching the protocol filter or the sort direction only swaps which list
+ * is read and from which end. Only choosing a different sort column re-sorts.
+ * The lists are chunked (see {@link IntList}), so placing a row and mapping a
+ * view row in either direction take O(log n) on large logs.
+ *
+ * An active search or filter expression narrows the view to a further array
+ * built from the protocol view once per query. New rows are checked against
+ * the filter predicate as they are inserted; during a search they only show up
+ * once the search index reports them through {@link #addSearchMatch(int)}.
+ */
+class RowIndex {
+
+	interface IndexComparator {
+		int compare(int a, int b);
+	}
+
+	private final IntFunction<String> protocolOf;
+	private final IntList all = new IntList();
+	private final Map<String, IntList> byProtocol = new HashMap<>();
+	private IndexComparator comparator;
+	private boolean ascending = true;
+	private String protocol;
+	private BitSet search;
+	private IntPredicate filter;
+	private BitSet filterMatches;
+	private final IntList narrowedRows = new IntList();
+
+	/**
+	 * @param protocolOf protocol of the entry at a model index
+	 * @param comparator initial sort order of model indices
+	 */
+	RowIndex(IntFunction<String> protocolOf, IndexComparator comparator) {
+		this.protocolOf = protocolOf;
+		this.comparator = withIndexTieBreak(comparator);
+	}
+
+	/**
+	 * Groups protocols the way the filter buttons do, e.g. HTTPS with HTTP.
+	 */
+	static String bucketOf(String protocol) {
+		String p = protocol.toLowerCase(Locale.ROOT);
+		return p.equals("https") ? "http" : p;
+	}
+
+	int size() {
+		return current().size();
+	}
+
+	int modelIndex(int viewRow) {
+		IntList rows = current();
+		return rows.get(ascending ? viewRow : rows.size() - 1 - viewRow);
+	}
+
+	/**
+	 * View row of a model index, or -1 when it is filtered out. Found with a
+	 * binary search, as the rows are ordered by the comparator.
+	 */
+	int viewRow(int modelIndex) {
+		IntList rows = current();
+		int position = rows.indexOf(modelIndex, comparator);
+		return (position == -1) ? -1 : toViewRow(position, rows.size());
+	}
+
+	/**
+	 * Adds a new model index and returns its view row, or -1 when the current
+	 * filter hides it.
+	 */
+	int insert(int modelIndex) {
+		int position = all.insertSorted(modelIndex, comparator);
+		String bucket = bucketOf(protocolOf.apply(modelIndex));
+		IntList bucketRows = byProtocol.computeIfAbsent(bucket, k -> new IntList());
+		int bucketPosition = bucketRows.insertSorted(modelIndex, comparator);
+
+		if (filter != null) {
+			if (!filter.test(modelIndex)) {
+				return -1;
+			}
+			filterMatches.set(modelIndex);
+		}
+		if (search != null) {
+			return -1;
+		}
+		if (filter != null) {
+			return (protocol == null || protocol.equals(bucket)) ? insertNarrowed(modelIndex) : -1;
+		}
+		if (protocol == null) {
+			return toViewRow(position, all.size());
+		}
+		return protocol.equals(bucket) ? toViewRow(bucketPosition, bucketRows.size()) : -1;
+	}
+
+	/**
+	 * Adds the model indices from {@code from} to {@code to} at once, e.g. rows
+	 * restored from the journal. They are appended and every array is sorted
+	 * once instead of placing each row with a binary search.
+	 */
+	void insertAll(int from, int to) {
+		for (int modelIndex = from; modelIndex < to; modelIndex++) {
+			all.add(modelIndex);
+			byProtocol.computeIfAbsent(bucketOf(protocolOf.apply(modelIndex)), k -> new IntList()).add(modelIndex);
+			if (filter != null && filter.test(modelIndex)) {
+				filterMatches.set(modelIndex);
+			}
+		}
+		all.sort(comparator);
+		for (IntList rows : byProtocol.values()) {
+			rows.sort(comparator);
+		}
+		rebuildNarrowed();
+	}
+
+	/**
+	 * Narrows the view to the given model indices, or shows everything for
+	 * {@code null}.
+	 */
+	void setSearch(BitSet matches) {
+		this.search = matches;
+		rebuildNarrowed();
+	}
+
+	/**
+	 * Narrows the view to rows accepted by {@code filter}, or removes the filter
+	 * for {@code null}. {@code matches} holds the result of the filter for all
+	 * current rows, computed up front so no predicate runs here.
+	 */
+	void setFilter(IntPredicate filter, BitSet matches) {
+		this.filter = filter;
+		this.filterMatches = (filter == null) ? null : matches;
+		rebuildNarrowed();
+	}
+
+	/**
+	 * Adds a row that matched the active search after it was set. Returns its
+	 * view row, or -1 when it is hidden or already shown.
+	 */
+	int addSearchMatch(int modelIndex) {
+		if (search == null || search.get(modelIndex)) {
+			return -1;
+		}
+		search.set(modelIndex);
+		if (protocol != null && !protocol.equals(bucketOf(protocolOf.apply(modelIndex)))) {
+			return -1;
+		}
+		if (filterMatches != null && !filterMatches.get(modelIndex)) {
+			return -1;
+		}
+		return insertNarrowed(modelIndex);
+	}
+
+	/**
+	 * Shows only one protocol, or everything for {@code null}.
+	 */
+	void setProtocol(String protocol) {
+		this.protocol = (protocol == null) ? null : bucketOf(protocol);
+		rebuildNarrowed();
+	}
+
+	void setAscending(boolean ascending) {
+		this.ascending = ascending;
+	}
+
+	boolean isAscending() {
+		return ascending;
+	}
+
+	/**
+	 * Re-sorts every array for a new sort column.
+	 */
+	void sortBy(IndexComparator comparator) {
+		this.comparator = withIndexTieBreak(comparator);
+		all.sort(this.comparator);
+		for (IntList rows : byProtocol.values()) {
+			rows.clear();
+		}
+		all.forEach(modelIndex -> byProtocol.get(bucketOf(protocolOf.apply(modelIndex))).add(modelIndex));
+		rebuildNarrowed();
+	}
+
+	void clear() {
+		all.clear();
+		byProtocol.clear();
+		narrowedRows.clear();
+		if (search != null) {
+			search.clear();
+		}
+		if (filterMatches != null) {
+			filterMatches.clear();
+		}
+	}
+
+	private boolean isNarrowed() {
+		return search != null || filterMatches != null;
+	}
+
+	private int insertNarrowed(int modelIndex) {
+		return toViewRow(narrowedRows.insertSorted(modelIndex, comparator), narrowedRows.size());
+	}
+
+	private void rebuildNarrowed() {
+		narrowedRows.clear();
+		if (!isNarrowed()) {
+			return;
+		}
+		base().forEach(modelIndex -> {
+			if ((search == null || search.get(modelIndex))
+					&& (filterMatches == null || filterMatches.get(modelIndex))) {
+				narrowedRows.add(modelIndex);
+			}
+		});
+	}
+
+	private IntList current() {
+		return isNarrowed() ? narrowedRows : base();
+	}
+
+	private IntList base() {
+		if (protocol == null) {
+			return all;
+		}
+		IntList rows = byProtocol.get(protocol);
+		return (rows == null) ? IntList.EMPTY : rows;
+	}
+
+	private int toViewRow(int position, int size) {
+		return ascending ? position : size - 1 - position;
+	}
+
+	// Model indices are unique, so ties on the sort column never leave two
+	// rows in an undefined order and binary searches stay exact.
+	private static IndexComparator withIndexTieBreak(IndexComparator comparator) {
+		return (a, b) -> {
+			int result = comparator.compare(a, b);
+			return (result != 0) ? result : Integer.compare(a, b);
+		};
+	}
+
+	/**
+	 * Sorted list of ints kept in chunks of up to {@value #CHUNK_SIZE} values,
+	 * with a merge sort that takes an {@link IndexComparator}, so model indices
+	 * are never boxed. A Fenwick tree over the chunk sizes finds the chunk
+	 * holding a position in O(log n), and a sorted insert only shifts values
+	 * within one chunk. A full chunk is split in two, which rebuilds the tree;
+	 * that happens at most once every {@value #CHUNK_SIZE} / 2 inserts.
+	 */
+	static class IntList {
+		static final int CHUNK_SIZE = 512;
+		private static final IntList EMPTY = new IntList();
+
+		private final List<int[]> chunks = new ArrayList<>();
+		private int[] counts = new int[8];
+		// Fenwick tree over counts, 1-based.
+		private int[] tree = new int[9];
+		private int size = 0;
+
+		int size() {
+			return size;
+		}
+
+		int get(int position) {
+			if (position < 0 || position >= size) {
+				throw new IndexOutOfBoundsException(position);
+			}
+			long located = locate(position);
+			return chunks.get((int) (located >>> 32))[(int) located];
+		}
+
+		void add(int value) {
+			int last = chunks.size() - 1;
+			if (last == -1 || counts[last] == CHUNK_SIZE) {
+				chunks.add(new int[CHUNK_SIZE]);
+				last++;
+				ensureChunkCapacity(last + 1);
+				counts[last] = 0;
+				rebuildTree();
+			}
+			chunks.get(last)[counts[last]++] = value;
+			increment(last);
+			size++;
+		}
+
+		/**
+		 * Inserts {@code value} in comparator order and returns its position.
+		 */
+		int insertSorted(int value, IndexComparator comparator) {
+			if (size == 0 || comparator.compare(lastValue(), value) < 0) {
+				add(value);
+				return size - 1;
+			}
+
+			int chunk = firstChunkNotBelow(value, comparator);
+			if (counts[chunk] == CHUNK_SIZE) {
+				split(chunk);
+				if (comparator.compare(chunks.get(chunk)[counts[chunk] - 1], value) < 0) {
+					chunk++;
+				}
+			}
+			int[] values = chunks.get(chunk);
+			int offset = lowerBound(values, counts[chunk], value, comparator);
+			System.arraycopy(values, offset, values, offset + 1, counts[chunk] - offset);
+			values[offset] = value;
+			counts[chunk]++;
+			increment(chunk);
+			size++;
+			return prefix(chunk) + offset;
+		}
+
+		/**
+		 * Position of {@code value} in a list sorted by {@code comparator}, or -1.
+		 */
+		int indexOf(int value, IndexComparator comparator) {
+			if (size == 0 || comparator.compare(lastValue(), value) < 0) {
+				return -1;
+			}
+			int chunk = firstChunkNotBelow(value, comparator);
+			int[] values = chunks.get(chunk);
+			int offset = lowerBound(values, counts[chunk], value, comparator);
+			return (offset < counts[chunk] && values[offset] == value) ? prefix(chunk) + offset : -1;
+		}
+
+		void forEach(IntConsumer action) {
+			for (int c = 0; c < chunks.size(); c++) {
+				int[] values = chunks.get(c);
+				for (int i = 0; i < counts[c]; i++) {
+					action.accept(values[i]);
+				}
+			}
+		}
+
+		void sort(IndexComparator comparator) {
+			if (size < 2) {
+				return;
+			}
+			int[] all = new int[size];
+			int[] position = { 0 };
+			forEach(value -> all[position[0]++] = value);
+			mergeSort(all, new int[size], 0, size, comparator);
+			chunks.clear();
+			ensureChunkCapacity((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+			for (int from = 0; from < size; from += CHUNK_SIZE) {
+				int count = Math.min(CHUNK_SIZE, size - from);
+				int[] values = new int[CHUNK_SIZE];
+				System.arraycopy(all, from, values, 0, count);
+				counts[chunks.size()] = count;
+				chunks.add(values);
+			}
+			rebuildTree();
+		}
+
+		void clear() {
+			chunks.clear();
+			Arrays.fill(tree, 0);
+			size = 0;
+		}
+
+		private int lastValue() {
+			int last = chunks.size() - 1;
+			return chunks.get(last)[counts[last] - 1];
+		}
+
+		// First chunk whose last value sorts at or after value; the caller has
+		// checked that the last value of the list does.
+		private int firstChunkNotBelow(int value, IndexComparator comparator) {
+			int low = 0;
+			int high = chunks.size() - 1;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (comparator.compare(chunks.get(mid)[counts[mid] - 1], value) < 0) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		private static int lowerBound(int[] values, int count, int value, IndexComparator comparator) {
+			int low = 0;
+			int high = count - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				if (comparator.compare(values[mid], value) < 0) {
+					low = mid + 1;
+				} else {
+					high = mid - 1;
+				}
+			}
+			return low;
+		}
+
+		private void split(int chunk) {
+			int[] values = chunks.get(chunk);
+			int half = CHUNK_SIZE / 2;
+			int[] upper = new int[CHUNK_SIZE];
+			System.arraycopy(values, half, upper, 0, CHUNK_SIZE - half);
+			chunks.add(chunk + 1, upper);
+			ensureChunkCapacity(chunks.size());
+			System.arraycopy(counts, chunk + 1, counts, chunk + 2, chunks.size() - chunk - 2);
+			counts[chunk] = half;
+			counts[chunk + 1] = CHUNK_SIZE - half;
+			rebuildTree();
+		}
+
+		private void ensureChunkCapacity(int chunkCount) {
+			if (chunkCount > counts.length) {
+				int capacity = Math.max(chunkCount, counts.length * 2);
+				counts = Arrays.copyOf(counts, capacity);
+				tree = new int[capacity + 1];
+			}
+		}
+
+		private void rebuildTree() {
+			Arrays.fill(tree, 0);
+			for (int i = 1; i <= chunks.size(); i++) {
+				tree[i] += counts[i - 1];
+				int parent = i + (i & -i);
+				if (parent <= chunks.size()) {
+					tree[parent] += tree[i];
+				}
+			}
+		}
+
+		private void increment(int chunk) {
+			for (int i = chunk + 1; i <= chunks.size(); i += i & -i) {
+				tree[i]++;
+			}
+		}
+
+		// Number of values in the chunks before chunk.
+		private int prefix(int chunk) {
+			int sum = 0;
+			for (int i = chunk; i > 0; i -= i & -i) {
+				sum += tree[i];
+			}
+			return sum;
+		}
+
+		// Chunk (high half) and offset in it (low half) of a position.
+		private long locate(int position) {
+			int chunk = 0;
+			int remaining = position;
+			for (int step = Integer.highestOneBit(chunks.size()); step > 0; step >>= 1) {
+				int next = chunk + step;
+				if (next <= chunks.size() && tree[next] <= remaining) {
+					chunk = next;
+					remaining -= tree[next];
+				}
+			}
+			return ((long) chunk << 32) | remaining;
+		}
+
+		private static void mergeSort(int[] a, int[] buffer, int from, int to, IndexComparator comparator) {
+			if (to - from < 2) {
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			mergeSort(a, buffer, from, mid, comparator);
+			mergeSort(a, buffer, mid, to, comparator);
+			if (comparator.compare(a[mid - 1], a[mid]) <= 0) {
+				return;
+			}
+
+			System.arraycopy(a, from, buffer, from, to - from);
+			int i = from;
+			int j = mid;
+			for (int k = from; k < to; k++) {
+				if (j >= to || (i < mid && comparator.compare(buffer[i], buffer[j]) <= 0)) {
+					a[k] = buffer[i++];
+				} else {
+					a[k] = buffer[j++];
+				}
+			}
+		}
+	}
+}
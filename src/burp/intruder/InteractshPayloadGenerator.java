@@ -0,0 +1,56 @@
+package burp.intruder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.intruder.GeneratedPayload;
+import burp.api.montoya.intruder.IntruderInsertionPoint;
+import burp.api.montoya.intruder.PayloadGenerator;
+import interactsh.PayloadIndex;
+import interactsh.SubdomainGenerator;
+
+/**
+ * Emits one unique payload domain per Intruder request until the configured
+ * count is reached.
+ *
+ * The session domain is encoded once into a byte template; each payload only
+ * packs a fresh nonce from the session's {@link SubdomainGenerator} into a copy
+ * of it, so no strings are built per payload. Nonces are registered in the
+ * payload index under the request number.
+ */
+class InteractshPayloadGenerator implements PayloadGenerator {
+	private final PayloadIndex index;
+	private final PayloadIndex.Origin origin;
+	private final SubdomainGenerator subdomains;
+	private final byte[] template;
+	private final int limit;
+	private final AtomicInteger sequence = new AtomicInteger();
+
+	InteractshPayloadGenerator(PayloadIndex index, PayloadIndex.Origin origin, SubdomainGenerator subdomains,
+			int limit) {
+		this.index = index;
+		this.origin = origin;
+		this.subdomains = subdomains;
+		// Any domain of the session will do, its nonce is overwritten.
+		this.template = subdomains.next().getBytes(StandardCharsets.US_ASCII);
+		this.limit = limit;
+	}
+
+	@Override
+	public GeneratedPayload generatePayloadFor(IntruderInsertionPoint insertionPoint) {
+		int number = sequence.incrementAndGet();
+		if (number > limit) {
+			return GeneratedPayload.end();
+		}
+
+		long nonce;
+		do {
+			nonce = subdomains.nextNonce();
+		} while (!index.put(nonce, origin, number));
+
+		byte[] payload = template.clone();
+		PayloadIndex.writeNonce(nonce, payload, PayloadIndex.CORRELATION_ID_LENGTH);
+		return GeneratedPayload.payload(ByteArray.byteArray(payload));
+	}
+}
@@ -0,0 +1,49 @@
+package burp.intruder;
+
+import burp.api.montoya.intruder.AttackConfiguration;
+import burp.api.montoya.intruder.GeneratedPayload;
+import burp.api.montoya.intruder.PayloadGenerator;
+import burp.api.montoya.intruder.PayloadGeneratorProvider;
+import interactsh.InteractshClient;
+import interactsh.PayloadIndex;
+
+/**
+ * Offers "Interactsh payloads" as an extension-generated Intruder payload type.
+ * Every attack gets its own origin in the payload index, so interactions show
+ * the attack's target and the number of the payload that caused them.
+ */
+public class InteractshPayloadGeneratorProvider implements PayloadGeneratorProvider {
+
+	@Override
+	public String displayName() {
+		return "Interactsh payloads";
+	}
+
+	@Override
+	public PayloadGenerator providePayloadGenerator(AttackConfiguration attackConfiguration) {
+		InteractshClient client = (burp.BurpExtender.tab == null) ? null
+				: burp.BurpExtender.tab.getListener().getClient();
+		if (client == null || burp.BurpExtender.payloads == null) {
+			burp.BurpExtender.api.logging()
+					.logToError("Interactsh payloads: no registered session, the attack gets no payloads.");
+			return insertionPoint -> GeneratedPayload.end();
+		}
+
+		PayloadIndex.Origin origin = new PayloadIndex.Origin("Intruder", describe(attackConfiguration),
+				client.getCorrelationId());
+		return new InteractshPayloadGenerator(burp.BurpExtender.payloads, origin, client.getSubdomains(),
+				burp.gui.Config.getIntruderPayloadCount());
+	}
+
+	private static String describe(AttackConfiguration attackConfiguration) {
+		String target = attackConfiguration.httpService().map(Object::toString).orElse("");
+		try {
+			String content = attackConfiguration.requestTemplate().content().toString();
+			int lineEnd = content.indexOf('\n');
+			String requestLine = (lineEnd == -1 ? content : content.substring(0, lineEnd)).trim();
+			return target.isEmpty() ? requestLine : target + " " + requestLine;
+		} catch (Exception ex) {
+			return target;
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package burp.listeners;
+
+/**
+ * Poll delay that follows the interaction rate of a session.
+ *
+ * A poll that returns interactions drops the delay to the configured minimum;
+ * every quiet poll doubles it until it reaches the configured maximum.
+ */
+class AdaptivePollInterval {
+	private long currentMillis = -1;
+
+	synchronized long next(int interactions, long fixedMillis) {
+		long min = Math.max(1, burp.gui.Config.getMinPollInterval()) * 1000L;
+		long max = Math.max(min, burp.gui.Config.getMaxPollInterval() * 1000L);
+
+		if (currentMillis < 0) {
+			currentMillis = Math.min(Math.max(fixedMillis, min), max);
+		} else if (interactions > 0) {
+			currentMillis = min;
+		} else {
+			currentMillis = Math.min(currentMillis * 2, max);
+		}
+		return currentMillis;
+	}
+}
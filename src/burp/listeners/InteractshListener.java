@@ -1,119 +1,335 @@
 package burp.listeners;
 
 import java.awt.datatransfer.StringSelection;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
+import java.util.function.IntSupplier;
 
 import javax.swing.SwingUtilities;
 
+import burp.api.montoya.http.message.responses.HttpResponse;
+import burp.api.montoya.persistence.PersistedObject;
 import interactsh.InteractshClient;
+import interactsh.PayloadIndex;
+import interactsh.SessionState;
 
 public class InteractshListener {
-	private final ExecutorService executor;
+	private static final int LONG_POLL_WAIT_SECONDS = 25;
+	private static final long LONG_POLL_MIN_HOLD_MILLIS = 1000;
+	private static final int LONG_POLL_MAX_QUICK_RETURNS = 3;
+
+	private final SessionManager manager;
+	private final IntSupplier pollInterval;
+	private final Consumer<String> onReadyCallback;
+	private final Consumer<String> onFailureCallback;
+	private final boolean resume;
+	private final long createdNanos = System.nanoTime();
+
 	private volatile InteractshClient client;
-	private final Semaphore pollSignal = new Semaphore(0);
 	private volatile boolean stopped = false;
 
+	private final Object scheduleLock = new Object();
+	private Future<?> pending;
+	private CompletableFuture<HttpResponse> heldPoll;
+	private long generation = 0;
+	private boolean polling = false;
+	private boolean pollRequested = false;
+	private final AdaptivePollInterval adaptiveInterval = new AdaptivePollInterval();
+	private volatile boolean longPollUnsupported = false;
+	private int longPollQuickReturns = 0;
+	private final LongPollPacer longPollPacer = new LongPollPacer();
+
 	public InteractshListener(Consumer<String> onReadyCallback, Consumer<String> onFailureCallback) {
-		this.executor = Executors.newSingleThreadExecutor();
-		this.executor.submit(() -> pollingLoop(onReadyCallback, onFailureCallback));
+		this(false, onReadyCallback, onFailureCallback);
+	}
+
+	/**
+	 * @param resume re-attach to the session stored in the project, when session
+	 *               resuming is enabled, instead of registering a new one
+	 */
+	public InteractshListener(boolean resume, Consumer<String> onReadyCallback, Consumer<String> onFailureCallback) {
+		this(burp.BurpExtender.sessions, burp.BurpExtender::getPollTime, resume, onReadyCallback,
+				onFailureCallback);
+	}
+
+	public InteractshListener(SessionManager manager, IntSupplier pollInterval, boolean resume,
+			Consumer<String> onReadyCallback, Consumer<String> onFailureCallback) {
+		this.manager = manager;
+		this.pollInterval = pollInterval;
+		this.resume = resume;
+		this.onReadyCallback = onReadyCallback;
+		this.onFailureCallback = onFailureCallback;
+
+		manager.attach(this);
+		synchronized (scheduleLock) {
+			this.pending = manager.submit(this::start);
+		}
 	}
 
-	private void pollingLoop(Consumer<String> onReadyCallback, Consumer<String> onFailureCallback) {
+	private void start() {
 		String host = burp.gui.Config.getHost();
 		try {
 			java.net.InetAddress.getByName(host);
 		} catch (java.net.UnknownHostException e) {
-			String errorMsg = "Cannot resolve host '" + host + "' - please check the server address in Configuration.";
-			if (burp.BurpExtender.api != null) {
-				burp.BurpExtender.api.logging().logToError(errorMsg);
-			}
-			if (onFailureCallback != null) {
-				SwingUtilities.invokeLater(() -> onFailureCallback.accept(errorMsg));
-			}
+			fail("Cannot resolve host '" + host + "' - please check the server address in Configuration.");
 			return;
 		}
 
 		try {
-			this.client = new InteractshClient();
-			if (client.register()) {
+			if (registerOrResume()) {
 				Thread.interrupted();
 				String newUrl = client.getInteractDomain();
+				burp.BurpExtender.debugLog("Session " + client.getCorrelationId() + " ready in "
+						+ (System.nanoTime() - createdNanos) / 1_000_000 + " ms ("
+						+ interactsh.KeyPairPool.available() + " key pairs pooled)");
 				if (burp.BurpExtender.api != null) {
 					burp.BurpExtender.api.logging().logToOutput("Session URL: " + newUrl);
 				}
 				if (onReadyCallback != null) {
 					SwingUtilities.invokeLater(() -> onReadyCallback.accept(newUrl));
 				}
-				while (!stopped && !burp.BurpExtender.unloading) {
-					client.poll();
-					try {
-						long pollTime = burp.BurpExtender.getPollTime();
-						pollSignal.tryAcquire(pollTime, TimeUnit.SECONDS);
-					} catch (InterruptedException e) {
-						break;
-					}
+				synchronized (scheduleLock) {
+					scheduleLocked(0);
 				}
 			} else {
-				String errorMsg = "Unable to register interactsh client. Check config.";
-				if (burp.BurpExtender.api != null) {
-					burp.BurpExtender.api.logging().logToError(errorMsg);
-				}
-				if (onFailureCallback != null) {
-					SwingUtilities.invokeLater(() -> onFailureCallback.accept(errorMsg));
-				}
+				fail("Unable to register interactsh client. Check config.");
 			}
 		} catch (Throwable ex) {
-			String errorMsg = "Error during registration: " + ex;
-			if (burp.BurpExtender.api != null) {
-				burp.BurpExtender.api.logging().logToError(errorMsg);
+			fail("Error during registration: " + ex);
+		}
+	}
+
+	private boolean registerOrResume() {
+		boolean persist = burp.gui.Config.isResumeSessionEnabled() && burp.BurpExtender.api != null;
+		PersistedObject data = persist ? burp.BurpExtender.api.persistence().extensionData() : null;
+
+		if (persist && !resume) {
+			// A new session replaces the stored one, even if it fails to register.
+			SessionState.clear(data);
+		}
+		SessionState stored = (persist && resume) ? SessionState.load(data) : null;
+		if (stored != null && !stored.getServer().equals(SessionState.currentServer())) {
+			burp.BurpExtender.debugLog("Stored session belongs to " + stored.getServer() + ", starting a new one.");
+			stored = null;
+		}
+
+		boolean ok;
+		if (stored != null) {
+			this.client = new InteractshClient(stored);
+			ok = client.resume();
+		} else {
+			this.client = new InteractshClient();
+			ok = client.register();
+		}
+
+		if (ok && persist) {
+			client.toSessionState().save(data);
+		}
+		return ok;
+	}
+
+	private void fail(String errorMsg) {
+		if (burp.BurpExtender.api != null) {
+			burp.BurpExtender.api.logging().logToError(errorMsg);
+		}
+		if (onFailureCallback != null) {
+			SwingUtilities.invokeLater(() -> onFailureCallback.accept(errorMsg));
+		}
+		if (!stopped && client != null && client.isRegistered()) {
+			client.deregister();
+		}
+		manager.detach(this);
+	}
+
+	private void pollTask(long taskGeneration) {
+		synchronized (scheduleLock) {
+			if (stopped || taskGeneration != generation) {
+				return;
 			}
-			if (onFailureCallback != null) {
-				SwingUtilities.invokeLater(() -> onFailureCallback.accept(errorMsg));
+			polling = true;
+		}
+
+		if (burp.BurpExtender.unloading) {
+			synchronized (scheduleLock) {
+				polling = false;
 			}
-		} finally {
-			if (!stopped && client != null && client.isRegistered()) {
+			// A resumable session stays registered so it can be picked up again.
+			if (!stopped && client != null && client.isRegistered()
+					&& !burp.gui.Config.isResumeSessionEnabled()) {
 				client.deregister();
 			}
+			manager.detach(this);
+			return;
+		}
+
+		if (burp.gui.Config.isLongPollEnabled() && !longPollUnsupported) {
+			longPoll();
+		} else {
+			manager.poll(client, this::pollFinished);
+		}
+	}
+
+	/**
+	 * Holds a poll open on the server and re-arms it when it returns, after a
+	 * short pause if it returned quickly (see {@link LongPollPacer}).
+	 * The request is held by the transport, so it does not occupy a scheduler
+	 * thread; only the handling of its response runs on the shared pool.
+	 * When the server keeps answering empty polls immediately it does not support
+	 * holding requests, and the session falls back to interval polling.
+	 */
+	private void longPoll() {
+		long started = System.nanoTime();
+		CompletableFuture<HttpResponse> held;
+		try {
+			held = client.longPoll(LONG_POLL_WAIT_SECONDS);
+		} catch (Throwable ex) {
+			if (burp.BurpExtender.api != null) {
+				burp.BurpExtender.api.logging().logToError("Polling error: " + ex);
+			}
+			pollFinished();
+			return;
+		}
+		synchronized (scheduleLock) {
+			heldPoll = held;
+		}
+		held.whenComplete((resp, failure) -> {
+			synchronized (scheduleLock) {
+				heldPoll = null;
+				if (stopped || manager.isShutdown()) {
+					polling = false;
+					return;
+				}
+				pending = manager.submit(() -> longPollReturned(resp, failure, started));
+			}
+		});
+	}
+
+	private void longPollReturned(HttpResponse resp, Throwable failure, long started) {
+		boolean ok = false;
+		try {
+			ok = client.handleLongPoll(resp, failure);
+		} catch (Throwable ex) {
+			if (burp.BurpExtender.api != null) {
+				burp.BurpExtender.api.logging().logToError("Polling error: " + ex);
+			}
+		}
+		long heldMillis = (System.nanoTime() - started) / 1_000_000;
+
+		if (!ok) {
+			pollFinished();
+			return;
+		}
+
+		if (client.getLastPollCount() > 0 || heldMillis >= LONG_POLL_MIN_HOLD_MILLIS) {
+			longPollQuickReturns = 0;
+		} else if (++longPollQuickReturns >= LONG_POLL_MAX_QUICK_RETURNS) {
+			longPollUnsupported = true;
+			burp.BurpExtender.debugLog("Server does not hold poll requests open, session "
+					+ client.getCorrelationId() + " falls back to interval polling.");
+			pollFinished();
+			return;
+		}
+
+		long delay = longPollPacer.next(heldMillis, LONG_POLL_MIN_HOLD_MILLIS);
+		synchronized (scheduleLock) {
+			polling = false;
+			if (pollRequested) {
+				delay = 0;
+			}
+			pollRequested = false;
+			scheduleLocked(delay);
 		}
 	}
 
+	private void pollFinished() {
+		synchronized (scheduleLock) {
+			polling = false;
+			long delay = pollRequested ? 0 : manager.jitter(nextPollDelay());
+			pollRequested = false;
+			scheduleLocked(delay);
+		}
+	}
+
+	private long nextPollDelay() {
+		long fixedMillis = pollInterval.getAsInt() * 1000L;
+		if (!burp.gui.Config.isAdaptivePollingEnabled()) {
+			return fixedMillis;
+		}
+		long delay = adaptiveInterval.next(client.getLastPollCount(), fixedMillis);
+		burp.BurpExtender.debugLog("Adaptive polling: next poll of " + client.getCorrelationId() + " in "
+				+ delay + " ms");
+		return delay;
+	}
+
+	private void scheduleLocked(long delayMillis) {
+		if (stopped || manager.isShutdown()) {
+			return;
+		}
+		long taskGeneration = ++generation;
+		pending = manager.schedule(() -> pollTask(taskGeneration), delayMillis);
+	}
+
 	public void close() {
-		stopped = true;
-		pollSignal.release();
-		executor.shutdownNow();
+		synchronized (scheduleLock) {
+			stopped = true;
+			generation++;
+			if (pending != null) {
+				pending.cancel(true);
+			}
+			if (heldPoll != null) {
+				heldPoll.cancel(true);
+			}
+		}
+		manager.detach(this);
+	}
 
-		new Thread(() -> {
-			try {
-				if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
-					if (burp.BurpExtender.api != null) {
-						try {
-							burp.BurpExtender.api.logging().logToError("Polling task did not terminate in time.");
-						} catch (Exception ignore) {
-						}
-					}
+	/**
+	 * Moves the next poll of this session forward to now.
+	 */
+	public boolean pollNow() {
+		InteractshClient currentClient = this.client;
+		if (currentClient == null || !currentClient.isRegistered()) {
+			return false;
+		}
+		synchronized (scheduleLock) {
+			if (stopped) {
+				return false;
+			}
+			if (polling) {
+				pollRequested = true;
+			} else {
+				if (pending != null) {
+					pending.cancel(false);
 				}
-			} catch (InterruptedException e) {
-				Thread.currentThread().interrupt();
+				scheduleLocked(0);
 			}
-		}).start();
+		}
+		return true;
 	}
 
-	public boolean pollNowAll() {
+	/**
+	 * The registered client of this session, or null while it is not ready.
+	 */
+	public InteractshClient getClient() {
 		InteractshClient currentClient = this.client;
-		if (currentClient != null && currentClient.isRegistered()) {
-			pollSignal.release();
-		}
-		return currentClient != null && currentClient.isRegistered();
+		return (currentClient != null && currentClient.isRegistered()) ? currentClient : null;
 	}
 
 	public boolean copyCurrentUrlToClipboard() {
+		return copyUrlToClipboard(null);
+	}
+
+	/**
+	 * Copies a fresh payload URL. With an origin, the URL is minted through the
+	 * payload index so interactions with it show where it was planted.
+	 */
+	public boolean copyUrlToClipboard(PayloadIndex.Origin origin) {
 		InteractshClient currentClient = this.client;
 		if (currentClient != null && currentClient.isRegistered()) {
-			String interactDomain = currentClient.getInteractDomain();
+			String interactDomain = (origin == null || burp.BurpExtender.payloads == null)
+					? currentClient.getInteractDomain()
+					: currentClient.mintPayload(burp.BurpExtender.payloads, origin, 0);
 			StringSelection stringSelection = new StringSelection(interactDomain);
 
 			boolean atLeastOneSucceeded = false;
@@ -0,0 +1,28 @@
+package burp.listeners;
+
+/**
+ * Delay before a long poll is re-armed.
+ *
+ * A poll the server held open is re-armed at once. A poll that came back
+ * quickly, usually because interactions were already waiting, is followed by
+ * a pause that starts at {@value #MIN_DELAY_MILLIS} ms and doubles with every
+ * further quick return up to {@value #MAX_DELAY_MILLIS} ms, so a burst of
+ * callbacks is collected in a few larger polls instead of back-to-back ones.
+ */
+class LongPollPacer {
+	static final long MIN_DELAY_MILLIS = 200;
+	static final long MAX_DELAY_MILLIS = 2000;
+
+	private long currentMillis = 0;
+
+	synchronized long next(long heldMillis, long minHoldMillis) {
+		if (heldMillis >= minHoldMillis) {
+			currentMillis = 0;
+		} else if (currentMillis == 0) {
+			currentMillis = MIN_DELAY_MILLIS;
+		} else {
+			currentMillis = Math.min(currentMillis * 2, MAX_DELAY_MILLIS);
+		}
+		return currentMillis;
+	}
+}
@@ -0,0 +1,254 @@
+package burp.listeners;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import interactsh.InteractshClient;
+
+/**
+ * Hosts any number of Interactsh sessions on one shared scheduler.
+ *
+ * Every registration, poll and deregistration runs as a short task on a small
+ * fixed pool, so the number of in-flight HTTP requests is bounded by the pool
+ * size no matter how many sessions are attached. Poll delays are jittered so
+ * sessions created together do not hit the server in lockstep. Sessions in
+ * long-poll receive mode occupy a worker while their request is held open.
+ *
+ * With batch polling enabled, polls that fall due within a short window and
+ * target the same server are coalesced and sent as one batch through the
+ * clients' shared transport.
+ */
+public class SessionManager {
+	private static final int DEFAULT_MAX_IN_FLIGHT = 8;
+	private static final double JITTER_RATIO = 0.1;
+	private static final long BATCH_WINDOW_MILLIS = 250;
+
+	private final ScheduledThreadPoolExecutor scheduler;
+	private final Set<InteractshListener> sessions = ConcurrentHashMap.newKeySet();
+	private final Map<String, List<PendingPoll>> batches = new HashMap<>();
+
+	public SessionManager() {
+		this(DEFAULT_MAX_IN_FLIGHT);
+	}
+
+	public SessionManager(int maxInFlight) {
+		AtomicInteger threadCount = new AtomicInteger();
+		this.scheduler = new ScheduledThreadPoolExecutor(Math.max(1, maxInFlight), r -> {
+			Thread t = new Thread(r, "interactsh-poller-" + threadCount.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		this.scheduler.setRemoveOnCancelPolicy(true);
+	}
+
+	void attach(InteractshListener listener) {
+		sessions.add(listener);
+	}
+
+	void detach(InteractshListener listener) {
+		sessions.remove(listener);
+	}
+
+	Future<?> submit(Runnable task) {
+		return scheduler.submit(task);
+	}
+
+	ScheduledFuture<?> schedule(Runnable task, long delayMillis) {
+		return scheduler.schedule(task, Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Spreads a delay by +/- 10% so polls of different sessions drift apart.
+	 */
+	long jitter(long delayMillis) {
+		if (delayMillis <= 0) {
+			return 0;
+		}
+		long spread = (long) (delayMillis * JITTER_RATIO);
+		if (spread == 0) {
+			return delayMillis;
+		}
+		return delayMillis + ThreadLocalRandom.current().nextLong(-spread, spread + 1);
+	}
+
+	/**
+	 * Polls the client, either directly on the calling task or as part of the
+	 * next batch for its server. {@code onDone} runs once the poll has finished.
+	 */
+	void poll(InteractshClient client, Runnable onDone) {
+		if (!burp.gui.Config.isBatchPollingEnabled()) {
+			try {
+				client.poll();
+			} catch (Throwable ex) {
+				if (burp.BurpExtender.api != null) {
+					burp.BurpExtender.api.logging().logToError("Polling error: " + ex);
+				}
+			} finally {
+				onDone.run();
+			}
+			return;
+		}
+
+		String key = client.getServerKey();
+		synchronized (batches) {
+			List<PendingPoll> batch = batches.get(key);
+			if (batch == null) {
+				batch = new ArrayList<>();
+				batches.put(key, batch);
+				schedule(() -> flushBatch(key), BATCH_WINDOW_MILLIS);
+			}
+			batch.add(new PendingPoll(client, onDone));
+		}
+	}
+
+	private void flushBatch(String key) {
+		List<PendingPoll> batch;
+		synchronized (batches) {
+			batch = batches.remove(key);
+		}
+		if (batch == null || batch.isEmpty()) {
+			return;
+		}
+
+		try {
+			pollBatch(batch);
+		} catch (Throwable ex) {
+			if (burp.BurpExtender.api != null) {
+				burp.BurpExtender.api.logging().logToError("Batched polling error: " + ex);
+			}
+		} finally {
+			for (PendingPoll pending : batch) {
+				pending.onDone.run();
+			}
+		}
+	}
+
+	private void pollBatch(List<PendingPoll> batch) {
+		if (batch.size() == 1 || burp.BurpExtender.api == null) {
+			for (PendingPoll pending : batch) {
+				pending.client.poll();
+			}
+			return;
+		}
+
+		Map<String, InteractshClient> byId = new HashMap<>();
+		List<HttpRequest> requests = new ArrayList<>(batch.size());
+		for (PendingPoll pending : batch) {
+			byId.put(pending.client.getCorrelationId(), pending.client);
+			requests.add(pending.client.buildPollRequest());
+		}
+
+		List<HttpRequestResponse> results = null;
+		long started = System.nanoTime();
+		try {
+			results = batch.get(0).client.getTransport().sendAll(requests);
+			burp.BurpExtender.debugLog("Batched poll of " + requests.size() + " sessions sent to "
+					+ requests.get(0).httpService());
+		} catch (Exception ex) {
+			burp.BurpExtender.debugLog("Batched poll failed, falling back to sequential polls: " + ex);
+		}
+
+		long batchNanos = System.nanoTime() - started;
+
+		if (results != null) {
+			matchResponses(byId, results).forEach((client, response) -> {
+				client.getMetrics().pollSent(batchNanos);
+				client.handlePollResponse(response);
+			});
+		}
+
+		// Anything the batch did not answer is polled on its own.
+		for (InteractshClient client : byId.values()) {
+			client.poll();
+		}
+	}
+
+	/**
+	 * Pairs batched results with their sessions by the correlation ID in the
+	 * poll request each one answers, so the transport may return them in any
+	 * order. Matched sessions are removed from {@code byId}; results without a
+	 * response or for an unknown session are skipped.
+	 */
+	static <C> Map<C, HttpResponse> matchResponses(Map<String, C> byId, List<HttpRequestResponse> results) {
+		Map<C, HttpResponse> matched = new LinkedHashMap<>();
+		for (HttpRequestResponse result : results) {
+			if (result == null || result.request() == null || result.response() == null) {
+				continue;
+			}
+			C client = byId.remove(correlationIdOf(result.request().path()));
+			if (client != null) {
+				matched.put(client, result.response());
+			}
+		}
+		return matched;
+	}
+
+	/**
+	 * The {@code id} query parameter of a poll request path, or null.
+	 */
+	static String correlationIdOf(String path) {
+		int query = (path == null) ? -1 : path.indexOf('?');
+		if (query == -1) {
+			return null;
+		}
+		for (String parameter : path.substring(query + 1).split("&")) {
+			if (parameter.startsWith("id=")) {
+				return parameter.substring(3);
+			}
+		}
+		return null;
+	}
+
+	public boolean isShutdown() {
+		return scheduler.isShutdown();
+	}
+
+	public void shutdown() {
+		synchronized (batches) {
+			batches.clear();
+		}
+		for (InteractshListener listener : new ArrayList<>(sessions)) {
+			listener.close();
+		}
+		scheduler.shutdownNow();
+
+		new Thread(() -> {
+			try {
+				if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+					if (burp.BurpExtender.api != null) {
+						try {
+							burp.BurpExtender.api.logging().logToError("Polling tasks did not terminate in time.");
+						} catch (Exception ignore) {
+						}
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}).start();
+	}
+
+	private static class PendingPoll {
+		private final InteractshClient client;
+		private final Runnable onDone;
+
+		PendingPoll(InteractshClient client, Runnable onDone) {
+			this.client = client;
+			this.onDone = onDone;
+		}
+	}
+}
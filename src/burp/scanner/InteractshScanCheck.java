@@ -0,0 +1,202 @@
+package burp.scanner;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.core.Marker;
+import burp.api.montoya.core.Range;
+import burp.api.montoya.http.Http;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.scanner.AuditResult;
+import burp.api.montoya.scanner.ConsolidationAction;
+import burp.api.montoya.scanner.audit.insertionpoint.AuditInsertionPoint;
+import burp.api.montoya.scanner.audit.issues.AuditIssue;
+import burp.api.montoya.scanner.audit.issues.AuditIssueConfidence;
+import burp.api.montoya.scanner.audit.issues.AuditIssueSeverity;
+import burp.api.montoya.scanner.scancheck.ActiveScanCheck;
+import interactsh.InteractshClient;
+import interactsh.InteractshEntry;
+import interactsh.PayloadIndex;
+import interactsh.SubdomainGenerator;
+
+/**
+ * Active scan check that plants Interactsh payloads at every insertion point.
+ *
+ * Each insertion point gets a bare payload domain and a URL. Callbacks arrive
+ * long after {@link #doCheck} has returned, so the check returns no issues
+ * itself; sent payloads are remembered in {@link OutstandingPayloads} and
+ * {@link #interactionsReceived} adds an issue to the site map when one of them
+ * calls back, once per probe and protocol.
+ */
+public class InteractshScanCheck implements ActiveScanCheck {
+	private static final String[] PAYLOAD_FORMATS = { "%s", "http://%s/" };
+	private static final List<String> PROTOCOLS = List.of("DNS", "HTTP", "SMTP", "LDAP", "FTP", "SMB", "RESPONDER");
+	private static final String REMEDIATION = "Do not make requests to hosts or URLs taken from user input. "
+			+ "If the application needs to reach other systems, only allow a fixed list of destinations "
+			+ "and block outbound traffic from servers that do not need it.";
+
+	private final OutstandingPayloads outstanding = new OutstandingPayloads();
+
+	@Override
+	public String checkName() {
+		return "Interactsh out-of-band interaction";
+	}
+
+	@Override
+	public AuditResult doCheck(HttpRequestResponse baseRequestResponse, AuditInsertionPoint insertionPoint,
+			Http http) {
+		if (!burp.gui.Config.isScanCheckEnabled() || burp.BurpExtender.tab == null
+				|| burp.BurpExtender.payloads == null) {
+			return AuditResult.auditResult();
+		}
+		InteractshClient client = burp.BurpExtender.tab.getListener().getClient();
+		if (client == null) {
+			return AuditResult.auditResult();
+		}
+
+		SubdomainGenerator subdomains = client.getSubdomains();
+		String origin = new PayloadIndex.Origin("Scanner",
+				baseRequestResponse.request().url() + " [" + insertionPoint.name() + "]", client.getCorrelationId())
+				.describe(0);
+		long ttlMillis = TimeUnit.MINUTES.toMillis(burp.gui.Config.getScanPayloadTtl());
+
+		for (String format : PAYLOAD_FORMATS) {
+			long nonce;
+			OutstandingPayloads.Probe probe;
+			do {
+				nonce = subdomains.nextNonce();
+				probe = new OutstandingPayloads.Probe(client.getCorrelationId(), origin, insertionPoint.name(),
+						String.format(format, subdomains.format(nonce)), System.currentTimeMillis() + ttlMillis);
+			} while (!outstanding.add(nonce, probe));
+
+			ByteArray payloadBytes = ByteArray.byteArray(probe.payload);
+			HttpRequestResponse requestResponse;
+			try {
+				HttpRequest request = insertionPoint.buildHttpRequestWithPayload(payloadBytes);
+				HttpRequestResponse sent = http.sendRequest(request);
+
+				List<Marker> markers = new ArrayList<>();
+				for (Range range : insertionPoint.issueHighlights(payloadBytes)) {
+					markers.add(Marker.marker(range));
+				}
+				requestResponse = sent.withRequestMarkers(markers).copyToTempFile();
+			} catch (Exception ex) {
+				// The payload may still have reached the target, so callbacks are
+				// reported against the base request.
+				burp.BurpExtender.debugLog("Scanner request with payload " + probe.payload + " failed: " + ex);
+				requestResponse = baseRequestResponse;
+			}
+			// Interactions polled while the request was in flight, e.g. from a
+			// target that fetches the payload before it responds.
+			for (InteractshEntry entry : probe.sent(requestResponse)) {
+				report(probe, requestResponse, entry);
+			}
+		}
+		return AuditResult.auditResult();
+	}
+
+	@Override
+	public ConsolidationAction consolidateIssues(AuditIssue newIssue, AuditIssue existingIssue) {
+		return newIssue.name().equals(existingIssue.name()) && newIssue.baseUrl().equals(existingIssue.baseUrl())
+				&& newIssue.detail().equals(existingIssue.detail()) ? ConsolidationAction.KEEP_EXISTING
+						: ConsolidationAction.KEEP_BOTH;
+	}
+
+	/**
+	 * Raises issues for interactions with payloads this check planted. An
+	 * interaction that arrives before its request has completed is raised by
+	 * {@link #doCheck} once it has.
+	 */
+	public void interactionsReceived(List<InteractshEntry> entries) {
+		if (burp.BurpExtender.api == null || outstanding.size() == 0) {
+			return;
+		}
+		for (InteractshEntry entry : entries) {
+			long nonce = PayloadIndex.nonceOf(entry.uid);
+			if (nonce < 0) {
+				continue;
+			}
+			OutstandingPayloads.Probe probe = outstanding.get(nonce);
+			if (probe == null || !entry.uid.startsWith(probe.correlationId)) {
+				continue;
+			}
+			HttpRequestResponse requestResponse = probe.requestResponseOrHold(entry);
+			if (requestResponse != null) {
+				report(probe, requestResponse, entry);
+			}
+		}
+	}
+
+	private static void report(OutstandingPayloads.Probe probe, HttpRequestResponse requestResponse,
+			InteractshEntry entry) {
+		String protocol = protocolName(entry.protocol);
+		int bit = 1 << (PROTOCOLS.contains(protocol) ? PROTOCOLS.indexOf(protocol) : 31);
+		if (!probe.markReported(bit)) {
+			return;
+		}
+
+		try {
+			burp.BurpExtender.api.siteMap().add(issueFor(probe, requestResponse, entry, protocol));
+			burp.BurpExtender.debugLog("Raised scanner issue for " + protocol + " interaction from "
+					+ entry.address + " with payload " + probe.payload);
+		} catch (Exception ex) {
+			burp.BurpExtender.api.logging().logToError("Unable to raise scanner issue: " + ex.getMessage());
+		}
+	}
+
+	public int getOutstandingCount() {
+		return outstanding.size();
+	}
+
+	public void clear() {
+		outstanding.clear();
+	}
+
+	/**
+	 * Where the scanner planted the payload with this unique ID, or null when it
+	 * is not an outstanding scanner payload.
+	 */
+	public String lookupOrigin(String uniqueId) {
+		long nonce = PayloadIndex.nonceOf(uniqueId);
+		if (nonce < 0 || outstanding.size() == 0) {
+			return null;
+		}
+		OutstandingPayloads.Probe probe = outstanding.get(nonce);
+		return (probe == null || !uniqueId.startsWith(probe.correlationId)) ? null : probe.origin;
+	}
+
+	private static AuditIssue issueFor(OutstandingPayloads.Probe probe, HttpRequestResponse requestResponse,
+			InteractshEntry entry, String protocol) {
+		boolean dnsOnly = protocol.equals("DNS");
+		String name = "External service interaction (" + protocol + ")";
+		String detail = "The payload <b>" + escape(probe.payload) + "</b> was submitted in the <b>"
+				+ escape(probe.insertionPoint) + "</b> insertion point.<br><br>"
+				+ "The application performed a " + protocol + " interaction with the Interactsh server "
+				+ "for this payload from <b>" + escape(entry.address) + "</b> at "
+				+ DateTimeFormatter.ISO_INSTANT.format(entry.timestamp) + " (unique ID " + escape(entry.uid) + ").";
+		String background = dnsOnly
+				? "A DNS lookup of a domain taken from user input shows that the application passes the input to "
+						+ "a component that resolves hostnames. This is often the first step of server-side "
+						+ "request forgery."
+				: "The application connected to a host taken from user input. This can let an attacker make the "
+						+ "server reach internal systems or other external services (server-side request forgery).";
+
+		return AuditIssue.auditIssue(name, detail, REMEDIATION, requestResponse.request().url(),
+				dnsOnly ? AuditIssueSeverity.MEDIUM : AuditIssueSeverity.HIGH, AuditIssueConfidence.CERTAIN,
+				background, null, dnsOnly ? AuditIssueSeverity.MEDIUM : AuditIssueSeverity.HIGH, requestResponse);
+	}
+
+	private static String protocolName(String protocol) {
+		String p = protocol.toUpperCase(Locale.ROOT);
+		return p.equals("HTTPS") ? "HTTP" : p;
+	}
+
+	private static String escape(String text) {
+		return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+	}
+}
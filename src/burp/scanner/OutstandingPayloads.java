@@ -0,0 +1,136 @@
+package burp.scanner;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import burp.api.montoya.http.message.HttpRequestResponse;
+import interactsh.InteractshEntry;
+
+/**
+ * Payloads sent by the scan check that have not called back yet.
+ *
+ * Probes are also queued by expiry time, which differs between probes when the
+ * payload TTL is changed during a scan: expired probes are dropped from the
+ * head of that queue on every insert and lookup, and the probe closest to
+ * expiry makes room once {@value #MAX_OUTSTANDING} are live. The request/response of a probe is moved
+ * to a Burp temp file when it is stored, so the heap only holds a small record
+ * per payload. Scanner payloads are not added to the global payload index, so
+ * this is also where the origin of a scanner callback is looked up.
+ */
+class OutstandingPayloads {
+	static final int MAX_OUTSTANDING = 250_000;
+
+	private final Map<Long, Probe> probes = new HashMap<>(1024);
+	private final PriorityQueue<Probe> byExpiry = new PriorityQueue<>(1024,
+			Comparator.comparingLong(probe -> probe.expiresAtMillis));
+
+	/**
+	 * What was sent with one payload.
+	 */
+	static class Probe {
+		final String correlationId;
+		final String origin;
+		final String insertionPoint;
+		final String payload;
+		final long expiresAtMillis;
+		private long nonce;
+		// Set once the request has been sent; the probe is stored before that so
+		// its nonce is reserved.
+		private HttpRequestResponse requestResponse;
+		// Interactions that arrived while the request was still in flight.
+		private List<InteractshEntry> early;
+		// Protocols an issue was already raised for, one bit each.
+		private int reported;
+
+		Probe(String correlationId, String origin, String insertionPoint, String payload, long expiresAtMillis) {
+			this.correlationId = correlationId;
+			this.origin = origin;
+			this.insertionPoint = insertionPoint;
+			this.payload = payload;
+			this.expiresAtMillis = expiresAtMillis;
+		}
+
+		/**
+		 * The request/response the payload was sent in, or null while it is still
+		 * in flight. In that case {@code entry} is held back and returned by
+		 * {@link #sent} once the request completes.
+		 */
+		synchronized HttpRequestResponse requestResponseOrHold(InteractshEntry entry) {
+			if (requestResponse == null) {
+				if (early == null) {
+					early = new ArrayList<>(2);
+				}
+				early.add(entry);
+			}
+			return requestResponse;
+		}
+
+		/**
+		 * Records the request/response and returns the interactions that arrived
+		 * before it.
+		 */
+		synchronized List<InteractshEntry> sent(HttpRequestResponse requestResponse) {
+			this.requestResponse = requestResponse;
+			List<InteractshEntry> held = (early == null) ? List.of() : early;
+			early = null;
+			return held;
+		}
+
+		/**
+		 * Returns true the first time an issue is reported for the protocol bit.
+		 */
+		synchronized boolean markReported(int bit) {
+			if ((reported & bit) != 0) {
+				return false;
+			}
+			reported |= bit;
+			return true;
+		}
+	}
+
+	/**
+	 * Records a probe before its request is sent. Returns false when a live probe already uses the nonce,
+	 * in which case the caller should mint another one.
+	 */
+	synchronized boolean add(long nonce, Probe probe) {
+		evictExpired(System.currentTimeMillis());
+		if (probes.putIfAbsent(nonce, probe) != null) {
+			return false;
+		}
+		probe.nonce = nonce;
+		byExpiry.add(probe);
+		if (probes.size() > MAX_OUTSTANDING) {
+			Probe soonest = byExpiry.poll();
+			probes.remove(soonest.nonce, soonest);
+		}
+		return true;
+	}
+
+	/**
+	 * The live probe of a nonce, or null when it is unknown or has expired.
+	 */
+	synchronized Probe get(long nonce) {
+		evictExpired(System.currentTimeMillis());
+		return probes.get(nonce);
+	}
+
+	synchronized int size() {
+		return probes.size();
+	}
+
+	synchronized void clear() {
+		probes.clear();
+		byExpiry.clear();
+	}
+
+	private void evictExpired(long now) {
+		while (!byExpiry.isEmpty() && byExpiry.peek().expiresAtMillis <= now) {
+			Probe expired = byExpiry.poll();
+			probes.remove(expired.nonce, expired);
+		}
+	}
+}
@@ -2,31 +2,40 @@ package interactsh;
 
 import java.nio.charset.StandardCharsets;
 import java.security.KeyPair;
-import java.security.KeyPairGenerator;
-import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.spec.MGF1ParameterSpec;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Base64;
-import java.util.Random;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 import javax.crypto.Cipher;
-import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.OAEPParameterSpec;
 import javax.crypto.spec.PSource;
 import javax.crypto.spec.SecretKeySpec;
 
-import org.json.JSONArray;
 import org.json.JSONObject;
 
+import burp.api.montoya.core.ByteArray;
 import burp.api.montoya.http.HttpService;
 import burp.api.montoya.http.message.requests.HttpRequest;
 import burp.api.montoya.http.message.responses.HttpResponse;
+import interactsh.transport.Transport;
+import interactsh.transport.Transports;
 import lombok.Getter;
+import lombok.Setter;
 
 public class InteractshClient {
+	private static final int PARALLEL_DECODE_THRESHOLD = 64;
+	private static final int DECODE_CHUNK_SIZE = 512;
+	private static final ForkJoinPool DECODE_POOL = new ForkJoinPool(
+			Math.max(2, Runtime.getRuntime().availableProcessors() - 1));
+
 	private PrivateKey privateKey;
 	private PublicKey publicKey;
 
@@ -44,14 +53,36 @@ public class InteractshClient {
 	private boolean scheme;
 	@Getter
 	private volatile boolean registered;
+	@Getter
+	private volatile int lastPollCount;
 	private String authorization;
-	private String aesMode;
+	private final PayloadDecryptor decryptor;
+	@Getter
+	private final Transport transport;
+	@Getter
+	private final SubdomainGenerator subdomains;
+	@Getter
+	private final Metrics.Host metrics;
+	// Where decoded interactions go: the scan check and the table, unless replaced.
+	@Setter
+	private volatile Consumer<List<InteractshEntry>> sink = burp.BurpExtender::addToTable;
 
 	public InteractshClient() {
-		this.correlationId = UUID.randomUUID().toString().replace("-", "").substring(0, 20);
-		this.secretKey = UUID.randomUUID().toString();
+		this(UUID.randomUUID().toString().replace("-", "").substring(0, 20), UUID.randomUUID().toString(),
+				KeyPairPool.take(burp.gui.Config.getKeySize()));
+	}
+
+	/**
+	 * Re-creates the client of a stored session instead of generating new keys.
+	 */
+	public InteractshClient(SessionState state) {
+		this(state.getCorrelationId(), state.getSecretKey(), state.getKeyPair());
+	}
+
+	private InteractshClient(String correlationId, String secretKey, KeyPair kp) {
+		this.correlationId = correlationId;
+		this.secretKey = secretKey;
 
-		KeyPair kp = generateKeys();
 		this.publicKey = kp.getPublic();
 		this.privateKey = kp.getPrivate();
 		this.pubKeyBase64 = Base64.getEncoder().encodeToString(getPublicKey().getBytes(StandardCharsets.UTF_8));
@@ -59,18 +90,28 @@ public class InteractshClient {
 		this.host = burp.gui.Config.getHost();
 		this.scheme = burp.gui.Config.getScheme();
 		this.authorization = burp.gui.Config.getAuth();
-		this.aesMode = burp.gui.Config.getAesMode();
+		this.decryptor = new PayloadDecryptor(burp.gui.Config.getAesMode());
+		this.transport = Transports.get(burp.gui.Config.getTransport());
+		this.subdomains = new SubdomainGenerator(correlationId, host);
 		try {
 			this.port = Integer.parseInt(burp.gui.Config.getPort());
 		} catch (NumberFormatException ne) {
 			this.port = 443;
 		}
+		this.metrics = Metrics.host((scheme ? "https://" : "http://") + host + ":" + port);
 	}
 
 	public boolean register() {
 		if (!isExtensionActive())
 			return false;
 
+		boolean ok = sendRegistration();
+		Metrics.registrationAttempted(ok);
+		return ok;
+	}
+
+	private boolean sendRegistration() {
+
 		try {
 			java.net.InetAddress.getByName(host);
 		} catch (java.net.UnknownHostException e) {
@@ -99,14 +140,15 @@ public class InteractshClient {
 				requestBuilder.append("Authorization: ").append(authorization).append("\r\n");
 			}
 
-			requestBuilder.append("Connection: close\r\n\r\n").append(requestBody);
+			requestBuilder.append("\r\n").append(requestBody);
 
 			String request = requestBuilder.toString();
 
 			HttpService httpService = HttpService.httpService(host, port, scheme);
 			HttpRequest httpRequest = HttpRequest.httpRequest(httpService, request);
-			burp.BurpExtender.debugLog("Sending registration request to " + host + ":" + port + " (TLS=" + scheme + ")");
-			HttpResponse resp = burp.BurpExtender.api.http().sendRequest(httpRequest).response();
+			burp.BurpExtender.debugLog("Sending registration request to " + host + ":" + port + " (TLS=" + scheme
+					+ ", transport=" + transport.getName() + ")");
+			HttpResponse resp = transport.send(httpRequest);
 			burp.BurpExtender.debugLog("Registration response received: " + (resp != null ? resp.statusCode() : "null"));
 
 			if (resp == null) {
@@ -138,28 +180,123 @@ public class InteractshClient {
 		return false;
 	}
 
+	/**
+	 * Re-attaches to an existing registration. A successful poll shows the server
+	 * still knows the correlation ID; otherwise the same keys are registered again.
+	 */
+	public boolean resume() {
+		if (!isExtensionActive())
+			return false;
+
+		Metrics.resumeAttempted();
+		try {
+			HttpResponse resp = sendPoll(buildPollRequest());
+			if (resp != null && resp.statusCode() == 200) {
+				this.registered = true;
+				burp.BurpExtender.debugLog("Resumed existing session " + correlationId + ".");
+				return handlePollResponse(resp);
+			}
+		} catch (Exception ex) {
+			burp.BurpExtender.debugLog("Unable to resume session " + correlationId + ": " + ex.getMessage());
+		}
+		return register();
+	}
+
+	public SessionState toSessionState() {
+		return new SessionState(correlationId, secretKey, new KeyPair(publicKey, privateKey),
+				SessionState.currentServer());
+	}
+
 	public boolean poll() {
 		if (!isExtensionActive())
 			return false;
 
+		HttpResponse resp;
+		try {
+			resp = sendPoll(buildPollRequest());
+		} catch (Exception ex) {
+			metrics.pollFailed();
+			if (isExtensionActive()) {
+				burp.BurpExtender.api.logging().logToError("Poll failed - " + ex.getMessage());
+			}
+			return false;
+		}
+		return handlePollResponse(resp);
+	}
+
+	/**
+	 * Polls with a {@code wait} hint so that a compatible server can hold the
+	 * request open until an interaction arrives. Servers that do not know the
+	 * parameter answer straight away, like a regular poll. The request is held
+	 * by the transport, not the calling thread; pass the outcome to
+	 * {@link #handleLongPoll}.
+	 */
+	public CompletableFuture<HttpResponse> longPoll(int waitSeconds) {
+		if (!isExtensionActive())
+			return CompletableFuture.completedFuture(null);
+
+		// Not timed: a held request measures the wait, not the server.
+		return transport.sendAsync(buildPollRequest(waitSeconds), (waitSeconds + 10) * 1000L);
+	}
+
+	public boolean handleLongPoll(HttpResponse resp, Throwable failure) {
+		if (failure != null) {
+			metrics.pollFailed();
+			burp.BurpExtender.debugLog("Long-poll failed - " + failure.getMessage());
+			return false;
+		}
+		return handlePollResponse(resp);
+	}
+
+	/**
+	 * Groups clients that can share a batched poll: same transport, server, port,
+	 * scheme and authorization.
+	 */
+	public String getServerKey() {
+		return transport.getName() + "|" + (scheme ? "https://" : "http://") + host + ":" + port + "|"
+				+ (authorization == null ? "" : authorization);
+	}
+
+	private HttpResponse sendPoll(HttpRequest request) throws Exception {
+		long started = System.nanoTime();
+		HttpResponse resp = transport.send(request);
+		metrics.pollSent(System.nanoTime() - started);
+		return resp;
+	}
+
+	public HttpRequest buildPollRequest() {
+		return buildPollRequest(0);
+	}
+
+	private HttpRequest buildPollRequest(int waitSeconds) {
 		StringBuilder requestBuilder = new StringBuilder();
 
-		requestBuilder.append("GET /poll?id=").append(correlationId).append("&secret=")
-				.append(secretKey).append(" HTTP/1.1\r\n").append("Host: ").append(host)
+		requestBuilder.append("GET /poll?id=").append(correlationId).append("&secret=").append(secretKey);
+		if (waitSeconds > 0) {
+			requestBuilder.append("&wait=").append(waitSeconds);
+		}
+		requestBuilder.append(" HTTP/1.1\r\n").append("Host: ").append(host)
 				.append("\r\n").append("User-Agent: Interact.sh Client\r\n");
 
 		if (authorization != null && !authorization.isEmpty()) {
 			requestBuilder.append("Authorization: ").append(authorization).append("\r\n");
 		}
 
-		requestBuilder.append("Connection: close\r\n\r\n");
+		requestBuilder.append("\r\n");
 
 		String request = requestBuilder.toString();
 
 		HttpService httpService = HttpService.httpService(host, port, scheme);
-		HttpRequest httpRequest = HttpRequest.httpRequest(httpService, request);
-		HttpResponse resp = burp.BurpExtender.api.http().sendRequest(httpRequest).response();
+		return HttpRequest.httpRequest(httpService, request);
+	}
+
+	public boolean handlePollResponse(HttpResponse resp) {
+		this.lastPollCount = 0;
+		if (!isExtensionActive())
+			return false;
+
 		if (resp == null || resp.statusCode() != 200) {
+			metrics.pollFailed();
 			if (isExtensionActive()) {
 				burp.BurpExtender.api.logging().logToError("Poll failed - status: "
 						+ (resp != null ? resp.statusCode() : "no response"));
@@ -167,25 +304,18 @@ public class InteractshClient {
 			return false;
 		}
 
-		String responseBody = resp.bodyToString();
-		if (responseBody == null || responseBody.isEmpty()) {
+		ByteArray body = resp.body();
+		if (body == null || body.length() == 0) {
 			return true;
 		}
+		metrics.received(body.length());
 
 		try {
-			JSONObject jsonObject = new JSONObject(responseBody);
-			String aesKey = jsonObject.getString("aes_key");
-			byte[] key = this.decryptAesKey(aesKey);
-			if (!jsonObject.isNull("data")) {
-				JSONArray data = jsonObject.getJSONArray("data");
-				for (int i = 0; i < data.length(); i++) {
-					String decryptedData = decryptData(data.getString(i), key);
-					if (isExtensionActive()) {
-						InteractshEntry entry = new InteractshEntry(decryptedData);
-						burp.BurpExtender.addToTable(entry);
-					}
-				}
-			}
+			RecordDecoder decoder = new RecordDecoder();
+			RecordChunker chunker = new RecordChunker(DECODE_CHUNK_SIZE, decoder);
+			PollResponseReader.read(() -> PollResponseReader.reader(body), chunker);
+			chunker.finish();
+			this.lastPollCount = decoder.delivered;
 		} catch (Exception ex) {
 			if (isExtensionActive()) {
 				String msg = (ex instanceof java.net.UnknownHostException)
@@ -197,6 +327,70 @@ public class InteractshClient {
 		return true;
 	}
 
+	/**
+	 * Decrypts the records of one poll response chunk by chunk and delivers
+	 * them to the table. The AES key is decrypted once, with the first chunk.
+	 */
+	private class RecordDecoder implements RecordChunker.ChunkHandler {
+		private SecretKeySpec key;
+		private int delivered = 0;
+
+		@Override
+		public void onChunk(String aesKey, List<byte[]> records) throws Exception {
+			if (key == null) {
+				key = new SecretKeySpec(decryptAesKey(aesKey), "AES");
+			}
+			List<InteractshEntry> entries = decodeEntries(records, key);
+			metrics.decoded(entries.size());
+			if (isExtensionActive() && !entries.isEmpty()) {
+				sink.accept(entries);
+				delivered += entries.size();
+			}
+		}
+	}
+
+	/**
+	 * Decrypts and parses a chunk of records. Large chunks are spread over the
+	 * shared decode pool; the result keeps the server order.
+	 */
+	private List<InteractshEntry> decodeEntries(List<byte[]> payloads, SecretKeySpec key) throws Exception {
+		int count = payloads.size();
+		if (count < PARALLEL_DECODE_THRESHOLD) {
+			List<InteractshEntry> entries = new ArrayList<>(count);
+			for (byte[] payload : payloads) {
+				InteractshEntry entry = decodeEntry(payload, key);
+				if (entry != null) {
+					entries.add(entry);
+				}
+			}
+			return entries;
+		}
+
+		InteractshEntry[] decoded = DECODE_POOL.submit(() -> IntStream.range(0, count).parallel()
+				.mapToObj(i -> decodeEntry(payloads.get(i), key))
+				.toArray(InteractshEntry[]::new)).get();
+
+		List<InteractshEntry> entries = new ArrayList<>(count);
+		for (InteractshEntry entry : decoded) {
+			if (entry != null) {
+				entries.add(entry);
+			}
+		}
+		return entries;
+	}
+
+	private InteractshEntry decodeEntry(byte[] payload, SecretKeySpec key) {
+		try {
+			return new InteractshEntry(decryptor.decrypt(payload, key));
+		} catch (Exception ex) {
+			Metrics.decodeFailed();
+			if (isExtensionActive()) {
+				burp.BurpExtender.api.logging().logToError("Unable to decode interaction: " + ex.getMessage());
+			}
+			return null;
+		}
+	}
+
 	public void deregister() {
 		if (!isExtensionActive())
 			return;
@@ -218,13 +412,13 @@ public class InteractshClient {
 				requestBuilder.append("Authorization: ").append(authorization).append("\r\n");
 			}
 
-			requestBuilder.append("Connection: close\r\n\r\n").append(requestBody);
+			requestBuilder.append("\r\n").append(requestBody);
 
 			String request = requestBuilder.toString();
 
 			HttpService httpService = HttpService.httpService(host, port, scheme);
 			HttpRequest httpRequest = HttpRequest.httpRequest(httpService, request);
-			burp.BurpExtender.api.http().sendRequest(httpRequest).response();
+			transport.send(httpRequest);
 		} catch (Exception ex) {
 			if (isExtensionActive()) {
 				String msg = (ex instanceof java.net.UnknownHostException)
@@ -239,27 +433,20 @@ public class InteractshClient {
 		if (correlationId == null || correlationId.isEmpty()) {
 			return "";
 		} else {
-			String fullDomain = correlationId;
-
-			Random random = new Random();
-			while (fullDomain.length() < 33) {
-				fullDomain += (char) (random.nextInt(26) + 'a');
-			}
-
-			fullDomain += "." + host;
-			return fullDomain;
+			return subdomains.next();
 		}
 	}
 
-	private KeyPair generateKeys() {
-		try {
-			KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
-			kpg.initialize(2048);
-			return kpg.generateKeyPair();
-		} catch (NoSuchAlgorithmException e) {
-			burp.BurpExtender.api.logging().logToError("Unable to generate client key pair", e);
-			throw new RuntimeException(e);
-		}
+	/**
+	 * Returns a payload domain with a nonce no other payload in {@code index}
+	 * uses, and records it there as planted by {@code origin}.
+	 */
+	public String mintPayload(PayloadIndex index, PayloadIndex.Origin origin, int sequence) {
+		long nonce;
+		do {
+			nonce = subdomains.nextNonce();
+		} while (!index.put(nonce, origin, sequence));
+		return subdomains.format(nonce);
 	}
 
 	private String getPublicKey() {
@@ -282,52 +469,6 @@ public class InteractshClient {
 		return cipher.doFinal(cipherTextArray);
 	}
 
-	private String decryptData(String input, byte[] key) throws Exception {
-		String mode = (this.aesMode == null || this.aesMode.isEmpty()) ? "AUTO" : this.aesMode.toUpperCase();
-
-		if (!"AUTO".equals(mode)) {
-			return decryptDataWithMode(input, key, mode);
-		}
-
-		// AUTO: try CTR first (public servers), then CFB (self-hosted servers).
-		String lastResult = null;
-		for (String candidate : new String[] { "CTR", "CFB" }) {
-			try {
-				String decrypted = decryptDataWithMode(input, key, candidate);
-				if (looksLikeJson(decrypted)) {
-					return decrypted;
-				}
-				lastResult = decrypted;
-			} catch (Exception ignored) {
-			}
-		}
-
-		return lastResult != null ? lastResult : "";
-	}
-
-	private String decryptDataWithMode(String input, byte[] key, String mode) throws Exception {
-		byte[] cipherTextArray = Base64.getDecoder().decode(input);
-		byte[] iv = Arrays.copyOfRange(cipherTextArray, 0, 16);
-		byte[] cipherText = Arrays.copyOfRange(cipherTextArray, 16, cipherTextArray.length);
-
-		IvParameterSpec ivSpec = new IvParameterSpec(iv);
-		SecretKeySpec skeySpec = new SecretKeySpec(key, "AES");
-		Cipher cipher = Cipher.getInstance("AES/" + mode + "/NoPadding");
-		cipher.init(Cipher.DECRYPT_MODE, skeySpec, ivSpec);
-		byte[] decrypted = cipher.doFinal(cipherText);
-
-		return new String(decrypted, StandardCharsets.UTF_8).trim();
-	}
-
-	private boolean looksLikeJson(String value) {
-		if (value == null) {
-			return false;
-		}
-		String candidate = value.trim();
-		return (candidate.startsWith("{") && candidate.endsWith("}"))
-				|| (candidate.startsWith("[") && candidate.endsWith("]"));
-	}
-
 	private String[] splitStringEveryN(String s, int interval) {
 		int arrayLength = (int) Math.ceil(((s.length() / (double) interval)));
 		String[] result = new String[arrayLength];
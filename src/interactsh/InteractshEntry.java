@@ -1,6 +1,11 @@
 package interactsh;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -8,24 +13,63 @@ import org.json.JSONObject;
 import burp.api.montoya.http.message.requests.HttpRequest;
 import burp.api.montoya.http.message.responses.HttpResponse;
 import interactsh.formatters.FormatterRegistry;
+import interactsh.store.PayloadSource;
 import lombok.Getter;
 import lombok.Setter;
 
 public class InteractshEntry {
+	private static final int RECENT_VIEW_LIMIT = 64;
+	// Small LRU of materialised views, so re-selecting a row does not re-parse it.
+	private static final Map<InteractshEntry, View> RECENT_VIEWS = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<InteractshEntry, View> eldest) {
+			return size() > RECENT_VIEW_LIMIT;
+		}
+	};
+
 	public String protocol;
 	public String uid;
-	public String details;
-	public String rawRequest;
-	public String rawResponse;
 	public String address;
 	public Instant timestamp;
 
 	@Getter
-	@Setter
 	private boolean read = false;
+	private UnreadCounter counter;
+
+	// Decrypted event JSON. Null once it has been moved to the spill file or
+	// when the entry was restored from the journal.
+	private volatile String event;
+	private volatile PayloadSource source;
+	// DNS query type. Restored from the journal index, or read from the event
+	// on first use for entries journaled without it.
+	@Setter
+	private volatile String queryType;
+	// What was asked for (DNS name and type, HTTP request line, SMTP sender),
+	// used to group repeated callbacks. Read lazily for restored entries.
+	private volatile String query;
 
-	public final HttpRequest httpRequest;
-	public final HttpResponse httpResponse;
+	// Repeated callbacks merged into this entry, kept as timestamps only.
+	@Getter
+	private volatile int hits = 1;
+	@Getter
+	private volatile Instant lastSeen;
+	private long[] duplicateTimes;
+	private int duplicateCount = 0;
+	@Getter
+	@Setter
+	private volatile boolean journaled = false;
+	// Segment and position of the entry's index line in the journal, or -1.
+	@Getter
+	@Setter
+	private volatile long journalSlot = -1;
+	// Where the payload was planted, when it was minted through the payload index.
+	@Getter
+	@Setter
+	private volatile String origin;
+	// Source address as raw bytes, filled in by the address filter on first use.
+	@Getter
+	@Setter
+	private volatile byte[] parsedAddress;
 
 	public InteractshEntry(String event) throws JSONException {
 		JSONObject jsonObject = new JSONObject(event);
@@ -33,18 +77,223 @@ public class InteractshEntry {
 		this.uid = jsonObject.getString("unique-id");
 		this.address = jsonObject.getString("remote-address");
 		this.timestamp = Instant.parse(jsonObject.getString("timestamp"));
-		this.rawRequest = jsonObject.optString("raw-request", "");
-		this.rawResponse = jsonObject.optString("raw-response", "");
+		this.queryType = jsonObject.optString("q-type", "");
+		this.query = queryOf(jsonObject);
+		this.lastSeen = this.timestamp;
+		this.event = event;
+	}
+
+	/**
+	 * Restores an entry whose event is loaded from {@code source} on demand.
+	 */
+	public InteractshEntry(String protocol, String uid, String address, Instant timestamp, boolean read,
+			PayloadSource source) {
+		this.protocol = protocol;
+		this.uid = uid;
+		this.address = address;
+		this.timestamp = timestamp;
+		this.read = read;
+		this.source = source;
+		this.lastSeen = timestamp;
+	}
+
+	/**
+	 * The decrypted event JSON, reloaded from disk or the project if needed.
+	 */
+	public String getEvent() {
+		return loadEvent();
+	}
 
-		if (this.protocol.equals("http") || this.protocol.equals("https")) {
-			this.httpRequest = HttpRequest.httpRequest(rawRequest);
-			this.httpResponse = HttpResponse.httpResponse(rawResponse);
-			this.details = (this.httpRequest == null) ? formatDetails(jsonObject) : "";
-		} else {
-			this.httpRequest = null;
-			this.httpResponse = null;
-			this.details = formatDetails(jsonObject);
+	/**
+	 * The event JSON if it is still in memory, otherwise null. Never reads the
+	 * spill file or the project.
+	 */
+	public String getResidentEvent() {
+		return event;
+	}
+
+	/**
+	 * The DNS query type (A, AAAA, TXT, ...) or an empty string.
+	 */
+	public String getQueryType() {
+		String type = this.queryType;
+		if (type == null) {
+			type = "dns".equals(protocol) ? new JSONObject(loadEvent()).optString("q-type", "") : "";
+			this.queryType = type;
+		}
+		return type;
+	}
+
+	public String getQuery() {
+		String q = this.query;
+		if (q == null) {
+			q = queryOf(new JSONObject(loadEvent()));
+			this.query = q;
 		}
+		return q;
+	}
+
+	/**
+	 * Merges a repeated callback into this entry. Only its time is kept, and the
+	 * entry becomes unread again.
+	 */
+	public void addDuplicate(InteractshEntry duplicate) {
+		synchronized (this) {
+			if (duplicateTimes == null) {
+				duplicateTimes = new long[4];
+			} else if (duplicateCount == duplicateTimes.length) {
+				duplicateTimes = Arrays.copyOf(duplicateTimes, duplicateTimes.length * 2);
+			}
+			duplicateTimes[duplicateCount++] = duplicate.timestamp.toEpochMilli();
+			hits++;
+			if (duplicate.timestamp.isAfter(lastSeen)) {
+				lastSeen = duplicate.timestamp;
+			}
+		}
+		setRead(false);
+	}
+
+	/**
+	 * Times of the callbacks merged into this entry since it was received or
+	 * restored, in arrival order.
+	 */
+	public synchronized long[] getDuplicateTimes() {
+		return (duplicateTimes == null) ? new long[0] : Arrays.copyOf(duplicateTimes, duplicateCount);
+	}
+
+	/**
+	 * Restores the hit count and last callback time of a journaled group. The
+	 * times of the individual callbacks are not kept.
+	 */
+	public synchronized void restoreHits(int hits, Instant lastSeen) {
+		this.hits = hits;
+		this.lastSeen = lastSeen;
+	}
+
+	public String getRawRequest() {
+		return view().rawRequest;
+	}
+
+	public String getRawResponse() {
+		return view().rawResponse;
+	}
+
+	public String getDetails() {
+		return view().details;
+	}
+
+	public HttpRequest getHttpRequest() {
+		return view().httpRequest;
+	}
+
+	public HttpResponse getHttpResponse() {
+		return view().httpResponse;
+	}
+
+	/**
+	 * Rough heap footprint of the resident payload, used by the store's memory cap.
+	 */
+	public long estimatePayloadSize() {
+		String e = this.event;
+		return (e == null) ? 0 : e.length();
+	}
+
+	/**
+	 * True when the event can be reloaded from the spill file or the project, so
+	 * it can be released without being written out first.
+	 */
+	public boolean isReloadable() {
+		return source != null;
+	}
+
+	/**
+	 * Releases the event from memory. {@code spilled} reloads it, unless the
+	 * entry can already reload it from elsewhere.
+	 */
+	public void release(PayloadSource spilled) {
+		if (this.source == null) {
+			this.source = spilled;
+		}
+		this.event = null;
+	}
+
+	/**
+	 * Forgets the materialised views of recently viewed entries.
+	 */
+	public static void clearViewCache() {
+		synchronized (RECENT_VIEWS) {
+			RECENT_VIEWS.clear();
+		}
+	}
+
+	private View view() {
+		synchronized (RECENT_VIEWS) {
+			View cached = RECENT_VIEWS.get(this);
+			if (cached != null) {
+				return cached;
+			}
+		}
+
+		View created = new View(new JSONObject(loadEvent()));
+		synchronized (RECENT_VIEWS) {
+			RECENT_VIEWS.put(this, created);
+		}
+		return created;
+	}
+
+	private String loadEvent() {
+		String e = this.event;
+		if (e != null) {
+			return e;
+		}
+		try {
+			return source.load();
+		} catch (IOException ex) {
+			throw new UncheckedIOException("Unable to reload interaction payload", ex);
+		}
+	}
+
+	private String queryOf(JSONObject obj) {
+		switch (protocol) {
+			case "dns":
+				return obj.optString("full-id", "") + " " + obj.optString("q-type", "");
+			case "http":
+			case "https":
+				String raw = obj.optString("raw-request", "");
+				int lineEnd = raw.indexOf('\n');
+				return (lineEnd == -1 ? raw : raw.substring(0, lineEnd)).trim();
+			case "smtp":
+				return obj.optString("smtp-from", "");
+			default:
+				return "";
+		}
+	}
+
+	private boolean isHttp() {
+		return this.protocol.equals("http") || this.protocol.equals("https");
+	}
+
+	public void setRead(boolean read) {
+		UnreadCounter target;
+		synchronized (this) {
+			if (this.read == read) {
+				return;
+			}
+			this.read = read;
+			target = this.counter;
+		}
+		if (target != null) {
+			target.readChanged(read);
+		}
+	}
+
+	/**
+	 * Binds this entry to a counter. Returns true when the entry is unread and
+	 * therefore adds to the count.
+	 */
+	synchronized boolean attach(UnreadCounter counter) {
+		this.counter = counter;
+		return !read;
 	}
 
 	private String formatDetails(JSONObject obj) {
@@ -59,4 +308,29 @@ public class InteractshEntry {
 		return "Protocol: " + protocol + "\n" + "UID: " + uid + "\n" + "Address: " + address + "\n"
 				+ "Timestamp: " + timestamp + "\n";
 	}
+
+	/**
+	 * Everything derived from the event that is only needed to display an entry.
+	 */
+	private class View {
+		private final String rawRequest;
+		private final String rawResponse;
+		private final String details;
+		private final HttpRequest httpRequest;
+		private final HttpResponse httpResponse;
+
+		View(JSONObject jsonObject) {
+			this.rawRequest = jsonObject.optString("raw-request", "");
+			this.rawResponse = jsonObject.optString("raw-response", "");
+			if (isHttp()) {
+				this.httpRequest = HttpRequest.httpRequest(rawRequest);
+				this.httpResponse = HttpResponse.httpResponse(rawResponse);
+				this.details = (this.httpRequest == null) ? formatDetails(jsonObject) : "";
+			} else {
+				this.httpRequest = null;
+				this.httpResponse = null;
+				this.details = formatDetails(jsonObject);
+			}
+		}
+	}
 }
@@ -0,0 +1,144 @@
+package interactsh;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps a few RSA key pairs ready so a new session can register without
+ * waiting for key generation.
+ *
+ * Pairs are generated on a single low-priority background thread and topped
+ * up after every {@link #take}. The pool only holds keys of one size; asking
+ * for another size discards them and refills with the new size. When the pool
+ * is empty a pair is generated on the calling thread.
+ */
+public class KeyPairPool {
+	private static final int POOL_SIZE = 3;
+
+	private static final Object lock = new Object();
+	private static final Deque<KeyPair> ready = new ArrayDeque<>();
+	private static int readyBits;
+	private static boolean refilling = false;
+	private static ExecutorService refiller;
+
+	/**
+	 * Returns a key pair of the given size, from the pool when one is ready.
+	 */
+	public static KeyPair take(int bits) {
+		KeyPair kp;
+		synchronized (lock) {
+			resizeLocked(bits);
+			kp = ready.pollFirst();
+		}
+
+		if (kp == null) {
+			long started = System.nanoTime();
+			kp = generate(bits);
+			burp.BurpExtender.debugLog("Key pool empty, generated a " + bits + "-bit key pair in "
+					+ (System.nanoTime() - started) / 1_000_000 + " ms");
+		}
+		refill();
+		return kp;
+	}
+
+	/**
+	 * Starts filling the pool with keys of the given size in the background.
+	 */
+	public static void prefill(int bits) {
+		synchronized (lock) {
+			resizeLocked(bits);
+		}
+		refill();
+	}
+
+	public static int available() {
+		synchronized (lock) {
+			return ready.size();
+		}
+	}
+
+	/**
+	 * Stops the background generator and drops pooled keys.
+	 */
+	public static void shutdown() {
+		synchronized (lock) {
+			ready.clear();
+			refilling = false;
+			if (refiller != null) {
+				refiller.shutdownNow();
+				refiller = null;
+			}
+		}
+	}
+
+	private static void resizeLocked(int bits) {
+		if (readyBits != bits) {
+			ready.clear();
+			readyBits = bits;
+		}
+	}
+
+	private static void refill() {
+		synchronized (lock) {
+			if (refilling || ready.size() >= POOL_SIZE) {
+				return;
+			}
+			if (refiller == null) {
+				refiller = Executors.newSingleThreadExecutor(r -> {
+					Thread t = new Thread(r, "interactsh-keygen");
+					t.setDaemon(true);
+					t.setPriority(Thread.MIN_PRIORITY);
+					return t;
+				});
+			}
+			refilling = true;
+			refiller.execute(KeyPairPool::fill);
+		}
+	}
+
+	private static void fill() {
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				int bits;
+				synchronized (lock) {
+					if (ready.size() >= POOL_SIZE) {
+						return;
+					}
+					bits = readyBits;
+				}
+
+				KeyPair kp = generate(bits);
+				synchronized (lock) {
+					// Keys of a size that is no longer wanted are dropped.
+					if (bits == readyBits && ready.size() < POOL_SIZE) {
+						ready.addLast(kp);
+					}
+				}
+			}
+		} catch (RuntimeException ex) {
+			burp.BurpExtender.debugLog("Key pool refill failed: " + ex);
+		} finally {
+			synchronized (lock) {
+				refilling = false;
+			}
+		}
+	}
+
+	private static KeyPair generate(int bits) {
+		try {
+			KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
+			kpg.initialize(bits);
+			return kpg.generateKeyPair();
+		} catch (NoSuchAlgorithmException e) {
+			if (burp.BurpExtender.api != null) {
+				burp.BurpExtender.api.logging().logToError("Unable to generate client key pair", e);
+			}
+			throw new RuntimeException(e);
+		}
+	}
+}
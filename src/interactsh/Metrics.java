@@ -0,0 +1,335 @@
+package interactsh;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import lombok.Getter;
+
+/**
+ * Counters for the polling pipeline, shared by every session.
+ *
+ * Per-server figures live in a {@link Host}; decrypt failures, registrations
+ * and the depth of the queue in front of the EDT are global. Everything is
+ * recorded with {@link LongAdder}s and atomic arrays, so recording from the
+ * poller and decode threads never takes a lock; readers get a best-effort
+ * snapshot.
+ */
+public final class Metrics {
+	private static final Map<String, Host> HOSTS = new ConcurrentHashMap<>();
+	private static final Map<String, LongAdder> DECRYPT_FAILURES = new ConcurrentHashMap<>();
+	private static final LongAdder DECODE_FAILURES = new LongAdder();
+	private static final LongAdder REGISTRATIONS = new LongAdder();
+	private static final LongAdder REGISTRATION_FAILURES = new LongAdder();
+	private static final LongAdder RESUMES = new LongAdder();
+	private static final AtomicLong QUEUE_DEPTH = new AtomicLong();
+	private static final AtomicLong QUEUE_PEAK = new AtomicLong();
+	private static volatile long resetMillis = System.currentTimeMillis();
+
+	private Metrics() {
+	}
+
+	/**
+	 * Counters of one Interactsh server, e.g. {@code https://oast.live:443}.
+	 */
+	public static final class Host {
+		@Getter
+		private final String server;
+		private final LongAdder polls = new LongAdder();
+		private final LongAdder pollFailures = new LongAdder();
+		private final LongAdder bytes = new LongAdder();
+		private final LongAdder records = new LongAdder();
+		@Getter
+		private final Histogram latency = new Histogram();
+		private final Rate recordRate = new Rate();
+
+		private Host(String server) {
+			this.server = server;
+		}
+
+		public void pollSent(long nanos) {
+			polls.increment();
+			latency.record(nanos / 1_000_000);
+		}
+
+		public void pollFailed() {
+			pollFailures.increment();
+		}
+
+		public void received(long byteCount) {
+			bytes.add(byteCount);
+		}
+
+		public void decoded(int count) {
+			records.add(count);
+			recordRate.add(count);
+		}
+
+		public long getPolls() {
+			return polls.sum();
+		}
+
+		public long getPollFailures() {
+			return pollFailures.sum();
+		}
+
+		public long getBytes() {
+			return bytes.sum();
+		}
+
+		public long getRecords() {
+			return records.sum();
+		}
+
+		public double getRecordsPerSecond() {
+			return recordRate.perSecond();
+		}
+
+		private void reset() {
+			polls.reset();
+			pollFailures.reset();
+			bytes.reset();
+			records.reset();
+			latency.reset();
+			recordRate.reset();
+		}
+
+		JSONObject toJson() {
+			return new JSONObject().put("server", server).put("polls", getPolls())
+					.put("pollFailures", getPollFailures()).put("bytesReceived", getBytes())
+					.put("recordsDecrypted", getRecords()).put("recordsPerSecond", getRecordsPerSecond())
+					.put("pollLatencyMillis", latency.toJson());
+		}
+	}
+
+	/**
+	 * Latency histogram with power-of-two millisecond buckets: bucket 0 counts
+	 * polls under 1 ms, bucket {@code i} those in {@code [2^(i-1), 2^i)} ms, and
+	 * the last bucket everything from about 65 seconds up.
+	 */
+	public static final class Histogram {
+		public static final int BUCKETS = 18;
+
+		private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+		private final LongAdder sum = new LongAdder();
+		private final AtomicLong max = new AtomicLong();
+
+		void record(long millis) {
+			int bucket = (millis <= 0) ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+			counts.incrementAndGet(bucket);
+			sum.add(millis);
+			max.accumulateAndGet(millis, Math::max);
+		}
+
+		public long getCount() {
+			long count = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				count += counts.get(i);
+			}
+			return count;
+		}
+
+		public long getMax() {
+			return max.get();
+		}
+
+		public double getMean() {
+			long count = getCount();
+			return (count == 0) ? 0 : (double) sum.sum() / count;
+		}
+
+		/**
+		 * Upper bound in milliseconds of the bucket holding the given percentile,
+		 * capped at the largest latency seen.
+		 */
+		public long percentile(double percentile) {
+			long count = getCount();
+			if (count == 0) {
+				return 0;
+			}
+			long rank = (long) Math.ceil(count * percentile / 100.0);
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += counts.get(i);
+				if (seen >= rank) {
+					return Math.min(1L << i, getMax());
+				}
+			}
+			return getMax();
+		}
+
+		private void reset() {
+			for (int i = 0; i < BUCKETS; i++) {
+				counts.set(i, 0);
+			}
+			sum.reset();
+			max.set(0);
+		}
+
+		JSONObject toJson() {
+			JSONArray buckets = new JSONArray();
+			for (int i = 0; i < BUCKETS; i++) {
+				buckets.put(counts.get(i));
+			}
+			return new JSONObject().put("count", getCount()).put("mean", getMean()).put("p50", percentile(50))
+					.put("p95", percentile(95)).put("p99", percentile(99)).put("max", getMax())
+					.put("buckets", buckets);
+		}
+	}
+
+	/**
+	 * Events per second over the last {@value #WINDOW_SECONDS} whole seconds, from
+	 * a ring of per-second counters.
+	 */
+	private static final class Rate {
+		private static final int WINDOW_SECONDS = 10;
+		private static final int SLOTS = WINDOW_SECONDS + 1;
+
+		private final AtomicLongArray seconds = new AtomicLongArray(SLOTS);
+		private final AtomicLongArray counts = new AtomicLongArray(SLOTS);
+
+		void add(int count) {
+			long second = System.currentTimeMillis() / 1000;
+			int slot = (int) (second % SLOTS);
+			long stamp = seconds.get(slot);
+			if (stamp != second && seconds.compareAndSet(slot, stamp, second)) {
+				counts.set(slot, 0);
+			}
+			counts.addAndGet(slot, count);
+		}
+
+		double perSecond() {
+			long now = System.currentTimeMillis() / 1000;
+			long total = 0;
+			for (int i = 0; i < SLOTS; i++) {
+				long second = seconds.get(i);
+				// The current second is still filling up, so it is left out.
+				if (second < now && second >= now - WINDOW_SECONDS) {
+					total += counts.get(i);
+				}
+			}
+			return total / (double) WINDOW_SECONDS;
+		}
+
+		void reset() {
+			for (int i = 0; i < SLOTS; i++) {
+				seconds.set(i, 0);
+				counts.set(i, 0);
+			}
+		}
+	}
+
+	public static Host host(String server) {
+		return HOSTS.computeIfAbsent(server, Host::new);
+	}
+
+	public static List<Host> getHosts() {
+		List<Host> hosts = new ArrayList<>(HOSTS.values());
+		hosts.sort((a, b) -> a.server.compareTo(b.server));
+		return hosts;
+	}
+
+	/**
+	 * A record that did not decrypt to JSON with the given AES mode. In AUTO
+	 * mode every mode that was tried is counted, and "AUTO" once none worked.
+	 */
+	public static void decryptFailed(String mode) {
+		DECRYPT_FAILURES.computeIfAbsent(mode, m -> new LongAdder()).increment();
+	}
+
+	/**
+	 * A record that was dropped because it could not be decrypted or parsed.
+	 */
+	public static void decodeFailed() {
+		DECODE_FAILURES.increment();
+	}
+
+	public static void registrationAttempted(boolean success) {
+		(success ? REGISTRATIONS : REGISTRATION_FAILURES).increment();
+	}
+
+	public static void resumeAttempted() {
+		RESUMES.increment();
+	}
+
+	public static void queued(int count) {
+		long depth = QUEUE_DEPTH.addAndGet(count);
+		QUEUE_PEAK.accumulateAndGet(depth, Math::max);
+	}
+
+	public static void drained(int count) {
+		QUEUE_DEPTH.addAndGet(-count);
+	}
+
+	public static long getDecryptFailures(String mode) {
+		LongAdder failures = DECRYPT_FAILURES.get(mode);
+		return (failures == null) ? 0 : failures.sum();
+	}
+
+	public static long getDecodeFailures() {
+		return DECODE_FAILURES.sum();
+	}
+
+	public static long getRegistrations() {
+		return REGISTRATIONS.sum();
+	}
+
+	public static long getRegistrationFailures() {
+		return REGISTRATION_FAILURES.sum();
+	}
+
+	public static long getResumes() {
+		return RESUMES.sum();
+	}
+
+	public static long getQueueDepth() {
+		return QUEUE_DEPTH.get();
+	}
+
+	public static long getQueuePeak() {
+		return QUEUE_PEAK.get();
+	}
+
+	public static long getResetMillis() {
+		return resetMillis;
+	}
+
+	/**
+	 * Zeroes every counter. The queue depth is a gauge and is kept.
+	 */
+	public static void reset() {
+		for (Host host : HOSTS.values()) {
+			host.reset();
+		}
+		DECRYPT_FAILURES.clear();
+		DECODE_FAILURES.reset();
+		REGISTRATIONS.reset();
+		REGISTRATION_FAILURES.reset();
+		RESUMES.reset();
+		QUEUE_PEAK.set(QUEUE_DEPTH.get());
+		resetMillis = System.currentTimeMillis();
+	}
+
+	public static JSONObject toJson() {
+		JSONArray hosts = new JSONArray();
+		for (Host host : getHosts()) {
+			hosts.put(host.toJson());
+		}
+		JSONObject decryptFailures = new JSONObject();
+		DECRYPT_FAILURES.forEach((mode, failures) -> decryptFailures.put(mode, failures.sum()));
+
+		return new JSONObject().put("since", Instant.ofEpochMilli(resetMillis).toString())
+				.put("hosts", hosts).put("decryptFailures", decryptFailures)
+				.put("decodeFailures", getDecodeFailures()).put("registrations", getRegistrations())
+				.put("registrationFailures", getRegistrationFailures()).put("resumes", getResumes())
+				.put("ingestQueueDepth", getQueueDepth()).put("ingestQueuePeak", getQueuePeak());
+	}
+}
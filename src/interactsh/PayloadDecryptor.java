@@ -0,0 +1,108 @@
+package interactsh;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Decrypts the records of a poll response: a 16 byte IV followed by the AES
+ * encrypted event JSON.
+ *
+ * Public Interactsh servers use CTR and self-hosted ones CFB. In AUTO mode the
+ * first mode that yields JSON is pinned for the session, and the modes are
+ * only probed again once it stops working.
+ */
+public class PayloadDecryptor {
+	private static final String[] AUTO_MODES = { "CTR", "CFB" };
+	// Cipher objects are not thread-safe, so each polling thread keeps its own.
+	private static final ThreadLocal<Map<String, Cipher>> CIPHERS = ThreadLocal.withInitial(HashMap::new);
+
+	private final String aesMode;
+	private volatile String resolvedMode;
+
+	/**
+	 * @param aesMode "CTR", "CFB" or "AUTO"; empty or null means AUTO
+	 */
+	public PayloadDecryptor(String aesMode) {
+		this.aesMode = (aesMode == null || aesMode.isEmpty()) ? "AUTO" : aesMode.toUpperCase(Locale.ROOT);
+	}
+
+	public String decrypt(byte[] payload, SecretKeySpec key) throws Exception {
+		if (!"AUTO".equals(aesMode)) {
+			String decrypted = decryptDataWithMode(payload, key, aesMode);
+			if (!looksLikeJson(decrypted)) {
+				Metrics.decryptFailed(aesMode);
+			}
+			return decrypted;
+		}
+
+		// AUTO: reuse the mode that worked for this session, re-probing only when it
+		// stops producing JSON.
+		String pinned = this.resolvedMode;
+		if (pinned != null) {
+			try {
+				String decrypted = decryptDataWithMode(payload, key, pinned);
+				if (looksLikeJson(decrypted)) {
+					return decrypted;
+				}
+			} catch (Exception ignored) {
+			}
+			Metrics.decryptFailed(pinned);
+			this.resolvedMode = null;
+			burp.BurpExtender.debugLog("AES mode " + pinned + " no longer decrypts, probing again.");
+		}
+
+		// Try CTR first (public servers), then CFB (self-hosted servers).
+		String lastResult = null;
+		for (String candidate : AUTO_MODES) {
+			if (candidate.equals(pinned)) {
+				continue;
+			}
+			try {
+				String decrypted = decryptDataWithMode(payload, key, candidate);
+				if (looksLikeJson(decrypted)) {
+					this.resolvedMode = candidate;
+					return decrypted;
+				}
+				lastResult = decrypted;
+			} catch (Exception ignored) {
+			}
+			Metrics.decryptFailed(candidate);
+		}
+		Metrics.decryptFailed("AUTO");
+
+		return lastResult != null ? lastResult : "";
+	}
+
+	public static String decryptDataWithMode(byte[] payload, SecretKeySpec key, String mode) throws Exception {
+		Cipher cipher = cipherFor(mode);
+		cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(payload, 0, 16));
+		byte[] decrypted = cipher.doFinal(payload, 16, payload.length - 16);
+
+		return new String(decrypted, StandardCharsets.UTF_8).trim();
+	}
+
+	private static Cipher cipherFor(String mode) throws Exception {
+		Map<String, Cipher> ciphers = CIPHERS.get();
+		Cipher cipher = ciphers.get(mode);
+		if (cipher == null) {
+			cipher = Cipher.getInstance("AES/" + mode + "/NoPadding");
+			ciphers.put(mode, cipher);
+		}
+		return cipher;
+	}
+
+	private static boolean looksLikeJson(String value) {
+		if (value == null) {
+			return false;
+		}
+		String candidate = value.trim();
+		return (candidate.startsWith("{") && candidate.endsWith("}"))
+				|| (candidate.startsWith("[") && candidate.endsWith("]"));
+	}
+}
@@ -0,0 +1,190 @@
+package interactsh;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * Remembers where each minted payload was planted, so interactions can be
+ * traced back to the request that triggered them.
+ *
+ * A unique ID is the 20 character correlation ID of the session followed by a
+ * 13 letter nonce. The nonce is packed into a {@code long} and kept in an
+ * open-addressing table next to the index of its {@link Origin} and a
+ * per-origin sequence number (e.g. the Intruder request number), so a payload
+ * costs 16 bytes and lookups are O(1). Origins are shared by every payload
+ * minted for the same purpose.
+ */
+public class PayloadIndex {
+	public static final int CORRELATION_ID_LENGTH = 20;
+	public static final int NONCE_LENGTH = 13;
+	// 26^13 distinct nonces.
+	public static final long NONCE_SPACE = 2_481_152_873_203_736_576L;
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final List<Origin> origins = new ArrayList<>();
+	private long[] keys = new long[INITIAL_CAPACITY];
+	private int[] originIds = new int[INITIAL_CAPACITY];
+	private int[] sequences = new int[INITIAL_CAPACITY];
+	private int size = 0;
+
+	/**
+	 * Where a group of payloads was planted.
+	 */
+	public static class Origin {
+		@Getter
+		private final String source;
+		@Getter
+		private final String detail;
+		@Getter
+		private final String correlationId;
+		@Getter
+		private final Instant created = Instant.now();
+		private int id = -1;
+
+		/**
+		 * @param source        what minted the payloads, e.g. "Context menu" or "Intruder"
+		 * @param detail        the request or host the payloads went into
+		 * @param correlationId session the payloads belong to
+		 */
+		public Origin(String source, String detail, String correlationId) {
+			this.source = source;
+			this.detail = detail;
+			this.correlationId = correlationId;
+		}
+
+		public String describe(int sequence) {
+			String text = (sequence > 0) ? source + " #" + sequence : source;
+			return (detail == null || detail.isEmpty()) ? text : text + ": " + detail;
+		}
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Records a nonce minted for {@code origin}, in packed form: a number in
+	 * {@code [0, NONCE_SPACE)}. Returns false when the nonce is already taken,
+	 * in which case the caller should mint another one.
+	 */
+	public synchronized boolean put(long nonce, Origin origin, int sequence) {
+		long key = nonce + 1;
+		if (origin.id == -1) {
+			origin.id = origins.size();
+			origins.add(origin);
+		}
+		if ((size + 1) * 2 > keys.length) {
+			resize(keys.length * 2);
+		}
+
+		int slot = slotOf(key);
+		if (keys[slot] == key) {
+			return false;
+		}
+		keys[slot] = key;
+		originIds[slot] = origin.id;
+		sequences[slot] = sequence;
+		size++;
+		return true;
+	}
+
+	/**
+	 * Describes where the payload with this unique ID was planted, or returns
+	 * null when it was not minted through this index.
+	 */
+	public synchronized String lookup(String uniqueId) {
+		if (uniqueId == null || uniqueId.length() != CORRELATION_ID_LENGTH + NONCE_LENGTH || size == 0) {
+			return null;
+		}
+		long key = encode(uniqueId, CORRELATION_ID_LENGTH);
+		if (key == 0) {
+			return null;
+		}
+		int slot = slotOf(key);
+		if (keys[slot] != key) {
+			return null;
+		}
+		Origin origin = origins.get(originIds[slot]);
+		if (!uniqueId.regionMatches(0, origin.correlationId, 0, CORRELATION_ID_LENGTH)) {
+			return null;
+		}
+		return origin.describe(sequences[slot]);
+	}
+
+	/**
+	 * The packed nonce of a unique ID, or -1 when it is not of the form minted
+	 * here.
+	 */
+	public static long nonceOf(String uniqueId) {
+		if (uniqueId == null || uniqueId.length() != CORRELATION_ID_LENGTH + NONCE_LENGTH) {
+			return -1;
+		}
+		return encode(uniqueId, CORRELATION_ID_LENGTH) - 1;
+	}
+
+	/**
+	 * Writes a packed nonce as 13 lower-case ASCII letters.
+	 */
+	public static void writeNonce(long nonce, byte[] out, int offset) {
+		for (int i = offset + NONCE_LENGTH - 1; i >= offset; i--) {
+			out[i] = (byte) ('a' + (int) (nonce % 26));
+			nonce /= 26;
+		}
+	}
+
+	private int slotOf(long key) {
+		int mask = keys.length - 1;
+		int slot = (int) (mix(key) & mask);
+		while (keys[slot] != 0 && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void resize(int capacity) {
+		long[] oldKeys = keys;
+		int[] oldOrigins = originIds;
+		int[] oldSequences = sequences;
+		keys = new long[capacity];
+		originIds = new int[capacity];
+		sequences = new int[capacity];
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != 0) {
+				int slot = slotOf(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				originIds[slot] = oldOrigins[i];
+				sequences[slot] = oldSequences[i];
+			}
+		}
+	}
+
+	/**
+	 * Packs the 13 lower-case letters at {@code offset} into a non-zero long,
+	 * or returns 0 when they are not all letters.
+	 */
+	private static long encode(String s, int offset) {
+		if (s.length() < offset + NONCE_LENGTH) {
+			return 0;
+		}
+		long key = 0;
+		for (int i = offset; i < offset + NONCE_LENGTH; i++) {
+			char c = s.charAt(i);
+			if (c < 'a' || c > 'z') {
+				return 0;
+			}
+			key = key * 26 + (c - 'a');
+		}
+		return key + 1;
+	}
+
+	private static long mix(long key) {
+		key ^= (key >>> 33);
+		key *= 0xff51afd7ed558ccdL;
+		key ^= (key >>> 33);
+		return key;
+	}
+}
@@ -0,0 +1,175 @@
+package interactsh;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.function.Supplier;
+
+import org.json.JSONException;
+import org.json.JSONTokener;
+
+import burp.api.montoya.core.ByteArray;
+
+/**
+ * Walks an Interactsh poll response without building a JSON tree.
+ *
+ * The server writes {@code data} before {@code aes_key}, so the body is read
+ * twice: a first pass skips over the records to find the key, and the second
+ * hands each element of the {@code data} array to the handler, base64-decoded,
+ * as soon as it has been read. The handler therefore always has the key before
+ * the first record, and only one ciphertext string is alive at a time. Other
+ * top-level fields are skipped.
+ */
+public class PollResponseReader {
+
+	public interface Handler {
+		void onKey(String aesKey) throws Exception;
+
+		void onRecord(byte[] payload) throws Exception;
+	}
+
+	private static final int READ_CHUNK_SIZE = 8192;
+
+	/**
+	 * @param source opens a new reader over the same response for each pass
+	 */
+	public static void read(Supplier<Reader> source, Handler handler) throws Exception {
+		String aesKey = readKey(source.get());
+		if (aesKey != null) {
+			handler.onKey(aesKey);
+		}
+		walk(source.get(), handler, true);
+	}
+
+	/**
+	 * The {@code aes_key} of a response, or null when it has none.
+	 */
+	static String readKey(Reader in) throws Exception {
+		String[] key = new String[1];
+		walk(in, new Handler() {
+			@Override
+			public void onKey(String aesKey) {
+				key[0] = aesKey;
+			}
+
+			@Override
+			public void onRecord(byte[] payload) {
+			}
+		}, false);
+		return key[0];
+	}
+
+	private static void walk(Reader in, Handler handler, boolean records) throws Exception {
+		JSONTokener tokener = new JSONTokener(in);
+		if (tokener.nextClean() != '{') {
+			throw tokener.syntaxError("A poll response must begin with '{'");
+		}
+
+		char c = tokener.nextClean();
+		while (c != '}') {
+			if (c != '"') {
+				throw tokener.syntaxError("Expected a key");
+			}
+			String key = tokener.nextString('"');
+			if (tokener.nextClean() != ':') {
+				throw tokener.syntaxError("Expected ':' after key " + key);
+			}
+
+			if ("data".equals(key)) {
+				readData(tokener, handler, records);
+			} else if ("aes_key".equals(key) && !records) {
+				Object value = tokener.nextValue();
+				if (value instanceof String aesKey) {
+					handler.onKey(aesKey);
+				}
+			} else {
+				tokener.nextValue();
+			}
+
+			c = tokener.nextClean();
+			if (c == ',') {
+				c = tokener.nextClean();
+			} else if (c != '}') {
+				throw tokener.syntaxError("Expected ',' or '}'");
+			}
+		}
+	}
+
+	// Records are only decoded on the second pass; the first one just skips
+	// over the strings.
+	private static void readData(JSONTokener tokener, Handler handler, boolean records) throws Exception {
+		char c = tokener.nextClean();
+		if (c != '[') {
+			tokener.back();
+			tokener.nextValue();
+			return;
+		}
+
+		c = tokener.nextClean();
+		while (c != ']') {
+			if (c == '"') {
+				String record = tokener.nextString('"');
+				if (records && !record.isEmpty()) {
+					handler.onRecord(Base64.getDecoder().decode(record));
+				}
+			} else {
+				tokener.back();
+				tokener.nextValue();
+			}
+
+			c = tokener.nextClean();
+			if (c == ',') {
+				c = tokener.nextClean();
+			} else if (c != ']') {
+				throw new JSONException("Expected ',' or ']' in data array");
+			}
+		}
+	}
+
+	/**
+	 * Reader over a Montoya body that copies it in small chunks instead of
+	 * materialising the whole body as one array or string.
+	 */
+	public static Reader reader(ByteArray body) {
+		return new InputStreamReader(new ByteArrayStream(body), StandardCharsets.UTF_8);
+	}
+
+	private static class ByteArrayStream extends InputStream {
+		private final ByteArray body;
+		private final int length;
+		private int position = 0;
+
+		ByteArrayStream(ByteArray body) {
+			this.body = body;
+			this.length = body.length();
+		}
+
+		@Override
+		public int read() {
+			return position < length ? body.getByte(position++) & 0xff : -1;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (position >= length) {
+				return -1;
+			}
+			int end = Math.min(length, position + Math.min(len, READ_CHUNK_SIZE));
+			byte[] chunk = body.subArray(position, end).getBytes();
+			System.arraycopy(chunk, 0, buffer, offset, chunk.length);
+			position = end;
+			return chunk.length;
+		}
+
+		@Override
+		public int available() {
+			return length - position;
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package interactsh;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONException;
+
+/**
+ * Collects the records of a poll response into chunks of at most
+ * {@code chunkSize} and hands each full chunk on before reading further, so
+ * a poll never holds more than one chunk of ciphertext however large the
+ * response is. {@link PollResponseReader} delivers the key before the first
+ * record; a record without a key means the response has none.
+ */
+class RecordChunker implements PollResponseReader.Handler {
+
+	interface ChunkHandler {
+		void onChunk(String aesKey, List<byte[]> records) throws Exception;
+	}
+
+	private final int chunkSize;
+	private final ChunkHandler handler;
+	private final List<byte[]> chunk;
+	private String aesKey;
+	private int peakBuffered = 0;
+
+	RecordChunker(int chunkSize, ChunkHandler handler) {
+		this.chunkSize = chunkSize;
+		this.handler = handler;
+		this.chunk = new ArrayList<>(chunkSize);
+	}
+
+	@Override
+	public void onKey(String aesKey) {
+		this.aesKey = aesKey;
+	}
+
+	@Override
+	public void onRecord(byte[] payload) throws Exception {
+		if (aesKey == null) {
+			throw new JSONException("Poll response contains data but no aes_key");
+		}
+		chunk.add(payload);
+		peakBuffered = Math.max(peakBuffered, chunk.size());
+		if (chunk.size() >= chunkSize) {
+			flush();
+		}
+	}
+
+	void finish() throws Exception {
+		if (!chunk.isEmpty()) {
+			flush();
+		}
+	}
+
+	/**
+	 * The most records held at once.
+	 */
+	int getPeakBuffered() {
+		return peakBuffered;
+	}
+
+	private void flush() throws Exception {
+		handler.onChunk(aesKey, chunk);
+		chunk.clear();
+	}
+}
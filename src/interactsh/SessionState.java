@@ -0,0 +1,173 @@
+package interactsh;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import burp.api.montoya.persistence.PersistedObject;
+import burp.api.montoya.persistence.Preferences;
+import lombok.Getter;
+
+/**
+ * Key pair, correlation ID and secret of an Interactsh session, persisted in the
+ * Burp project so the session can be resumed after a reload or restart.
+ *
+ * The state is tied to the server it was registered with and is only stored
+ * in the project file, never in the global extension preferences. The RSA
+ * private key is sealed with AES-GCM under a key that is generated once per
+ * installation and kept in the extension preferences, so a copied project file
+ * alone does not reveal it; the session can then only be resumed by the Burp
+ * installation that created it.
+ */
+public class SessionState {
+	private static final String CORRELATION_ID_KEY = "interactsh-session-correlation-id";
+	private static final String SECRET_KEY = "interactsh-session-secret";
+	private static final String PRIVATE_KEY = "interactsh-session-sealed-private-key";
+	// Unsealed key written by earlier versions, removed on the next save.
+	private static final String LEGACY_PRIVATE_KEY = "interactsh-session-private-key";
+	private static final String SEALING_KEY = "interactsh-session-sealing-key";
+	private static final int GCM_IV_LENGTH = 12;
+	private static final int GCM_TAG_BITS = 128;
+	private static final String PUBLIC_KEY = "interactsh-session-public-key";
+	private static final String SERVER_KEY = "interactsh-session-server";
+
+	@Getter
+	private final String correlationId;
+	@Getter
+	private final String secretKey;
+	@Getter
+	private final KeyPair keyPair;
+	@Getter
+	private final String server;
+
+	public SessionState(String correlationId, String secretKey, KeyPair keyPair, String server) {
+		this.correlationId = correlationId;
+		this.secretKey = secretKey;
+		this.keyPair = keyPair;
+		this.server = server;
+	}
+
+	/**
+	 * Identifies the server settings a session belongs to.
+	 */
+	public static String currentServer() {
+		return burp.gui.Config.getHost() + ":" + burp.gui.Config.getPort() + ":" + burp.gui.Config.getScheme();
+	}
+
+	public static SessionState load(PersistedObject data) {
+		String correlationId = data.getString(CORRELATION_ID_KEY);
+		String secretKey = data.getString(SECRET_KEY);
+		String sealedKey = data.getString(PRIVATE_KEY);
+		String legacyKey = data.getString(LEGACY_PRIVATE_KEY);
+		String publicKey = data.getString(PUBLIC_KEY);
+		String server = data.getString(SERVER_KEY);
+		if (correlationId == null || secretKey == null || (sealedKey == null && legacyKey == null)
+				|| publicKey == null || server == null) {
+			return null;
+		}
+
+		try {
+			byte[] encodedKey;
+			if (sealedKey != null) {
+				byte[] sealingKey = sealingKey(false);
+				if (sealingKey == null) {
+					burp.BurpExtender.debugLog("Stored Interactsh session was saved by another installation.");
+					return null;
+				}
+				encodedKey = unseal(Base64.getDecoder().decode(sealedKey), sealingKey);
+			} else {
+				encodedKey = Base64.getDecoder().decode(legacyKey);
+			}
+			KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+			PrivateKey priv = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(encodedKey));
+			PublicKey pub = keyFactory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(publicKey)));
+			return new SessionState(correlationId, secretKey, new KeyPair(pub, priv), server);
+		} catch (Exception ex) {
+			burp.BurpExtender.debugLog("Stored Interactsh session is unreadable: " + ex.getMessage());
+			return null;
+		}
+	}
+
+	public void save(PersistedObject data) {
+		byte[] sealed;
+		try {
+			sealed = seal(keyPair.getPrivate().getEncoded(), sealingKey(true));
+		} catch (GeneralSecurityException ex) {
+			burp.BurpExtender.debugLog("Unable to seal the Interactsh session key: " + ex.getMessage());
+			return;
+		}
+		data.setString(CORRELATION_ID_KEY, correlationId);
+		data.setString(SECRET_KEY, secretKey);
+		data.setString(PRIVATE_KEY, Base64.getEncoder().encodeToString(sealed));
+		data.deleteString(LEGACY_PRIVATE_KEY);
+		data.setString(PUBLIC_KEY, Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+		data.setString(SERVER_KEY, server);
+	}
+
+	public static void clear(PersistedObject data) {
+		data.deleteString(CORRELATION_ID_KEY);
+		data.deleteString(SECRET_KEY);
+		data.deleteString(PRIVATE_KEY);
+		data.deleteString(LEGACY_PRIVATE_KEY);
+		data.deleteString(PUBLIC_KEY);
+		data.deleteString(SERVER_KEY);
+	}
+
+	/**
+	 * Encrypts {@code plain} with AES-GCM; the result is the random IV followed
+	 * by the ciphertext and tag.
+	 */
+	static byte[] seal(byte[] plain, byte[] key) throws GeneralSecurityException {
+		byte[] iv = new byte[GCM_IV_LENGTH];
+		new SecureRandom().nextBytes(iv);
+		Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+		cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new GCMParameterSpec(GCM_TAG_BITS, iv));
+		byte[] encrypted = cipher.doFinal(plain);
+		return ByteBuffer.allocate(iv.length + encrypted.length).put(iv).put(encrypted).array();
+	}
+
+	/**
+	 * Reverses {@link #seal}. Fails when the data was sealed with another key
+	 * or has been modified.
+	 */
+	static byte[] unseal(byte[] sealed, byte[] key) throws GeneralSecurityException {
+		if (sealed.length <= GCM_IV_LENGTH) {
+			throw new GeneralSecurityException("Sealed data is too short");
+		}
+		Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+		cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, "AES"),
+				new GCMParameterSpec(GCM_TAG_BITS, Arrays.copyOf(sealed, GCM_IV_LENGTH)));
+		return cipher.doFinal(sealed, GCM_IV_LENGTH, sealed.length - GCM_IV_LENGTH);
+	}
+
+	/**
+	 * The per-installation sealing key from the extension preferences. When none
+	 * exists yet it is created if {@code create} is set, otherwise null.
+	 */
+	private static byte[] sealingKey(boolean create) {
+		Preferences preferences = burp.BurpExtender.api.persistence().preferences();
+		String stored = preferences.getString(SEALING_KEY);
+		if (stored != null) {
+			return Base64.getDecoder().decode(stored);
+		}
+		if (!create) {
+			return null;
+		}
+		byte[] key = new byte[32];
+		new SecureRandom().nextBytes(key);
+		preferences.setString(SEALING_KEY, Base64.getEncoder().encodeToString(key));
+		return key;
+	}
+}
@@ -0,0 +1,72 @@
+package interactsh;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mints the payload subdomains of one session.
+ *
+ * A nonce is a shared counter passed through a keyed bijection of 61-bit
+ * integers (add, xor-shift and odd multiply steps, the way SplittableRandom
+ * mixes its counter). Since the mapping is one-to-one and 2^61 is below the
+ * 26^13 nonce space, no two calls on the same generator ever return the same
+ * nonce, and the only shared state is one atomic increment. Domains are built
+ * in a per-thread char buffer that already holds the correlation ID and the
+ * server host.
+ */
+public class SubdomainGenerator {
+	private static final long MASK = (1L << 61) - 1;
+
+	private final AtomicLong counter = new AtomicLong();
+	private final long key;
+	private final long multiplier1;
+	private final long multiplier2;
+	private final ThreadLocal<char[]> buffers;
+
+	public SubdomainGenerator(String correlationId, String host) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		this.key = random.nextLong() & MASK;
+		this.multiplier1 = (random.nextLong() | 1) & MASK;
+		this.multiplier2 = (random.nextLong() | 1) & MASK;
+
+		String template = correlationId + "x".repeat(PayloadIndex.NONCE_LENGTH) + "." + host;
+		this.buffers = ThreadLocal.withInitial(template::toCharArray);
+	}
+
+	/**
+	 * Next nonce in packed form, see {@link PayloadIndex#writeNonce}.
+	 */
+	public long nextNonce() {
+		long x = (counter.getAndIncrement() + key) & MASK;
+		x ^= x >>> 31;
+		x = (x * multiplier1) & MASK;
+		x ^= x >>> 29;
+		x = (x * multiplier2) & MASK;
+		x ^= x >>> 32;
+		return x;
+	}
+
+	/**
+	 * Next payload domain, {@code <correlation id><nonce>.<host>}.
+	 */
+	public String next() {
+		return format(nextNonce());
+	}
+
+	/**
+	 * The payload domain for a nonce from {@link #nextNonce()}.
+	 */
+	public String format(long nonce) {
+		char[] buffer = buffers.get();
+		for (int i = PayloadIndex.CORRELATION_ID_LENGTH + PayloadIndex.NONCE_LENGTH - 1;
+				i >= PayloadIndex.CORRELATION_ID_LENGTH; i--) {
+			buffer[i] = (char) ('a' + (int) (nonce % 26));
+			nonce /= 26;
+		}
+		return new String(buffer);
+	}
+
+	public long getIssued() {
+		return counter.get();
+	}
+}
@@ -0,0 +1,70 @@
+package interactsh;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the number of unread interactions up to date without scanning the log.
+ *
+ * Entries are attached when they are added to the log and report their own
+ * read/unread transitions through {@link InteractshEntry#setRead(boolean)}.
+ */
+public class UnreadCounter {
+
+	public interface Listener {
+		void unreadCountChanged(int unreadCount);
+	}
+
+	private final AtomicInteger unread = new AtomicInteger();
+	private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+	public void addListener(Listener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+
+	public int get() {
+		return unread.get();
+	}
+
+	public void track(InteractshEntry entry) {
+		if (entry.attach(this)) {
+			fire(unread.incrementAndGet());
+		}
+	}
+
+	/**
+	 * Attaches a batch of new entries and notifies listeners once.
+	 */
+	public void trackAll(Collection<InteractshEntry> entries) {
+		int added = 0;
+		for (InteractshEntry entry : entries) {
+			if (entry.attach(this)) {
+				added++;
+			}
+		}
+		if (added > 0) {
+			fire(unread.addAndGet(added));
+		}
+	}
+
+	public void reset() {
+		unread.set(0);
+		fire(0);
+	}
+
+	void readChanged(boolean read) {
+		fire(read ? unread.decrementAndGet() : unread.incrementAndGet());
+	}
+
+	private void fire(int unreadCount) {
+		for (Listener listener : listeners) {
+			listener.unreadCountChanged(unreadCount);
+		}
+	}
+}
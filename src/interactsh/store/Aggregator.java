@@ -0,0 +1,103 @@
+package interactsh.store;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import interactsh.InteractshEntry;
+
+/**
+ * Folds repeated callbacks into the entry that first reported them.
+ *
+ * Entries with the same unique ID, protocol, source address and query that
+ * arrive within the window of the group's last hit are merged into that
+ * group's entry with {@link InteractshEntry#addDuplicate}. Groups that have
+ * been quiet for longer than the window are forgotten, so a later callback
+ * starts a new row. Entries restored from the journal are never grouped:
+ * their query lives in the project file, and reading it back for every
+ * restored row would load all of their events.
+ */
+public class Aggregator {
+
+    private static final int PRUNE_INTERVAL = 256;
+
+    // Access-ordered, so the groups that went quiet first sit at the head.
+    private final Map<GroupKey, InteractshEntry> groups = new LinkedHashMap<>(16, 0.75f, true);
+    private int sincePrune = 0;
+
+    /**
+     * Returns the entry {@code entry} was merged into, or null when it starts
+     * a new group and should be shown as its own row.
+     */
+    public InteractshEntry merge(InteractshEntry entry, Duration window) {
+        if (entry.isJournaled()) {
+            return null;
+        }
+        GroupKey key = new GroupKey(entry);
+        InteractshEntry group = groups.get(key);
+        if (group != null && !entry.timestamp.isAfter(group.getLastSeen().plus(window))) {
+            group.addDuplicate(entry);
+            return group;
+        }
+
+        groups.put(key, entry);
+        if (++sincePrune >= PRUNE_INTERVAL) {
+            sincePrune = 0;
+            prune(entry, window);
+        }
+        return null;
+    }
+
+    public int getGroupCount() {
+        return groups.size();
+    }
+
+    public void clear() {
+        groups.clear();
+        sincePrune = 0;
+    }
+
+    private void prune(InteractshEntry newest, Duration window) {
+        Iterator<InteractshEntry> it = groups.values().iterator();
+        while (it.hasNext()) {
+            InteractshEntry group = it.next();
+            if (!group.getLastSeen().plus(window).isBefore(newest.timestamp)) {
+                return;
+            }
+            it.remove();
+        }
+    }
+
+    private static final class GroupKey {
+        private final String uid;
+        private final String protocol;
+        private final String address;
+        private final String query;
+        private final int hash;
+
+        GroupKey(InteractshEntry entry) {
+            this.uid = entry.uid;
+            this.protocol = entry.protocol;
+            this.address = entry.address;
+            this.query = entry.getQuery();
+            this.hash = Objects.hash(uid, protocol, address, query);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof GroupKey)) {
+                return false;
+            }
+            GroupKey other = (GroupKey) o;
+            return hash == other.hash && uid.equals(other.uid) && protocol.equals(other.protocol)
+                    && address.equals(other.address) && query.equals(other.query);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
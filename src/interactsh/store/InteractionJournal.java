@@ -0,0 +1,326 @@
+package interactsh.store;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import burp.api.montoya.persistence.PersistedList;
+import burp.api.montoya.persistence.PersistedObject;
+import interactsh.InteractshEntry;
+
+/**
+ * Append-only journal of interactions stored in the Burp project file.
+ *
+ * Interactions are written in segments of up to {@value #SEGMENT_SIZE}
+ * entries. Each segment holds a compact index list (protocol, unique ID, source
+ * address, timestamp, hits, last seen, DNS query type) and a parallel list with
+ * the decrypted events. Reopening a project only reads the index lists, which
+ * hold every column the table and the filter expressions use; events are
+ * fetched one segment at a time when an entry is viewed. When repeated
+ * callbacks are merged into a journaled entry, only its index line is
+ * rewritten.
+ *
+ * All writes happen on a dedicated background thread. Changes are collected
+ * in memory and written to the project at most once every
+ * {@value #FLUSH_DELAY_MILLIS} ms, so a burst of small batches rewrites the
+ * open segment once instead of once per batch.
+ */
+public class InteractionJournal {
+
+    private static final String SEGMENT_COUNT_KEY = "interactsh-journal-segments";
+    private static final int SEGMENT_SIZE = 256;
+    private static final long FLUSH_DELAY_MILLIS = 1000;
+
+    private final PersistedObject data;
+    private final ScheduledThreadPoolExecutor writer;
+
+    private boolean loaded = false;
+    private int segmentCount = 0;
+    private PersistedList<String> openIndex;
+    private PersistedList<String> openEvents;
+    private boolean openDirty = false;
+    // Index lists of full segments with rewritten lines, by segment.
+    private final Map<Integer, PersistedList<String>> dirtyIndexes = new HashMap<>();
+    private boolean flushScheduled = false;
+
+    private int cachedSegment = -1;
+    private List<String> cachedEvents;
+
+    public InteractionJournal(PersistedObject data) {
+        this.data = data;
+        this.writer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "interactsh-journal");
+            t.setDaemon(true);
+            return t;
+        });
+        // close() flushes right away, so a pending delayed flush is not waited for.
+        this.writer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Reads the journal index in the background and hands the restored entries
+     * to {@code onLoaded}.
+     */
+    public void loadAsync(Consumer<List<InteractshEntry>> onLoaded) {
+        writer.submit(() -> {
+            try {
+                long started = System.nanoTime();
+                List<InteractshEntry> entries = load();
+                burp.BurpExtender.debugLog("Restored " + entries.size() + " interactions from the project in "
+                        + (System.nanoTime() - started) / 1_000_000 + " ms.");
+                if (!entries.isEmpty()) {
+                    onLoaded.accept(entries);
+                }
+            } catch (Exception ex) {
+                if (burp.BurpExtender.api != null) {
+                    burp.BurpExtender.api.logging().logToError("Unable to restore interactions: " + ex.getMessage());
+                }
+            }
+        });
+    }
+
+    public void append(Collection<InteractshEntry> entries) {
+        List<InteractshEntry> pending = new ArrayList<>(entries.size());
+        for (InteractshEntry entry : entries) {
+            if (!entry.isJournaled()) {
+                pending.add(entry);
+            }
+        }
+        if (!pending.isEmpty()) {
+            writer.submit(() -> write(pending));
+        }
+    }
+
+    /**
+     * Rewrites the hit count and last-seen time of journaled entries that
+     * repeated callbacks were merged into.
+     */
+    public void update(Collection<InteractshEntry> groups) {
+        List<InteractshEntry> changed = new ArrayList<>(groups);
+        if (!changed.isEmpty()) {
+            writer.submit(() -> rewrite(changed));
+        }
+    }
+
+    public void clear() {
+        writer.submit(this::deleteAll);
+    }
+
+    /**
+     * Writes pending changes and waits briefly for them before the extension
+     * unloads.
+     */
+    public void close() {
+        writer.submit(this::flushNow);
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized List<InteractshEntry> load() {
+        loaded = false;
+        ensureLoaded();
+
+        List<InteractshEntry> entries = new ArrayList<>();
+        for (int segment = 0; segment < segmentCount; segment++) {
+            PersistedList<String> index = data.getStringList(indexKey(segment));
+            if (index == null) {
+                continue;
+            }
+            for (int position = 0; position < index.size(); position++) {
+                InteractshEntry entry = restore(index.get(position), segment, position);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Reads the segment count and reopens the last segment if it has room, so
+     * writes continue after the segments already in the project even when the
+     * journal was switched on after the project was opened.
+     */
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        Integer count = data.getInteger(SEGMENT_COUNT_KEY);
+        segmentCount = (count == null) ? 0 : count;
+        openIndex = null;
+        openEvents = null;
+        if (segmentCount > 0) {
+            PersistedList<String> index = data.getStringList(indexKey(segmentCount - 1));
+            PersistedList<String> events = data.getStringList(eventsKey(segmentCount - 1));
+            if (index != null && events != null && index.size() < SEGMENT_SIZE) {
+                openIndex = index;
+                openEvents = events;
+            }
+        }
+        loaded = true;
+    }
+
+    // Older lines have only the first four or six columns.
+    private InteractshEntry restore(String line, int segment, int position) {
+        String[] columns = line.split("\t", -1);
+        if (columns.length < 4) {
+            return null;
+        }
+        InteractshEntry entry = new InteractshEntry(columns[0], columns[1], columns[2], Instant.parse(columns[3]),
+                true, () -> loadEvent(segment, position));
+        if (columns.length >= 6) {
+            entry.restoreHits(Integer.parseInt(columns[4]), Instant.parse(columns[5]));
+        }
+        if (columns.length >= 7) {
+            entry.setQueryType(columns[6]);
+        }
+        entry.setJournalSlot(slot(segment, position));
+        entry.setJournaled(true);
+        return entry;
+    }
+
+    private static String indexLine(InteractshEntry entry) {
+        return entry.protocol + "\t" + entry.uid + "\t" + entry.address + "\t" + entry.timestamp + "\t"
+                + entry.getHits() + "\t" + entry.getLastSeen() + "\t" + entry.getQueryType();
+    }
+
+    private synchronized String loadEvent(int segment, int position) {
+        if (cachedSegment != segment) {
+            cachedEvents = data.getStringList(eventsKey(segment));
+            cachedSegment = segment;
+        }
+        return cachedEvents.get(position);
+    }
+
+    private synchronized void write(List<InteractshEntry> entries) {
+        try {
+            ensureLoaded();
+            for (InteractshEntry entry : entries) {
+                if (openIndex == null || openIndex.size() >= SEGMENT_SIZE) {
+                    flush();
+                    openIndex = PersistedList.persistedStringList();
+                    openEvents = PersistedList.persistedStringList();
+                    segmentCount++;
+                }
+                entry.setJournalSlot(slot(segmentCount - 1, openIndex.size()));
+                openIndex.add(indexLine(entry));
+                openEvents.add(entry.getEvent());
+                openDirty = true;
+                entry.setJournaled(true);
+            }
+            scheduleFlush();
+        } catch (Exception ex) {
+            if (burp.BurpExtender.api != null) {
+                burp.BurpExtender.api.logging().logToError("Unable to journal interactions: " + ex.getMessage());
+            }
+        }
+    }
+
+    private synchronized void rewrite(List<InteractshEntry> groups) {
+        try {
+            ensureLoaded();
+            for (InteractshEntry entry : groups) {
+                long slot = entry.getJournalSlot();
+                if (slot < 0) {
+                    continue;
+                }
+                int segment = (int) (slot >>> 32);
+                int position = (int) slot;
+                PersistedList<String> index;
+                if (segment == segmentCount - 1 && openIndex != null) {
+                    index = openIndex;
+                    openDirty = true;
+                } else if (segment < segmentCount) {
+                    index = dirtyIndexes.computeIfAbsent(segment, s -> data.getStringList(indexKey(s)));
+                } else {
+                    continue;
+                }
+                if (index != null && position < index.size()) {
+                    index.set(position, indexLine(entry));
+                }
+            }
+            scheduleFlush();
+        } catch (Exception ex) {
+            if (burp.BurpExtender.api != null) {
+                burp.BurpExtender.api.logging().logToError("Unable to journal interactions: " + ex.getMessage());
+            }
+        }
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            writer.schedule(this::flushNow, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void flushNow() {
+        flushScheduled = false;
+        try {
+            flush();
+        } catch (Exception ex) {
+            if (burp.BurpExtender.api != null) {
+                burp.BurpExtender.api.logging().logToError("Unable to journal interactions: " + ex.getMessage());
+            }
+        }
+    }
+
+    private void flush() {
+        for (Map.Entry<Integer, PersistedList<String>> dirty : dirtyIndexes.entrySet()) {
+            if (dirty.getValue() != null) {
+                data.setStringList(indexKey(dirty.getKey()), dirty.getValue());
+            }
+        }
+        dirtyIndexes.clear();
+        if (openIndex == null || !openDirty) {
+            return;
+        }
+        int segment = segmentCount - 1;
+        data.setStringList(indexKey(segment), openIndex);
+        data.setStringList(eventsKey(segment), openEvents);
+        data.setInteger(SEGMENT_COUNT_KEY, segmentCount);
+        openDirty = false;
+        if (cachedSegment == segment) {
+            cachedSegment = -1;
+            cachedEvents = null;
+        }
+    }
+
+    private synchronized void deleteAll() {
+        ensureLoaded();
+        for (int segment = 0; segment < segmentCount; segment++) {
+            data.deleteStringList(indexKey(segment));
+            data.deleteStringList(eventsKey(segment));
+        }
+        data.setInteger(SEGMENT_COUNT_KEY, 0);
+        segmentCount = 0;
+        openIndex = null;
+        openEvents = null;
+        openDirty = false;
+        dirtyIndexes.clear();
+        cachedSegment = -1;
+        cachedEvents = null;
+    }
+
+    private static long slot(int segment, int position) {
+        return ((long) segment << 32) | position;
+    }
+
+    private static String indexKey(int segment) {
+        return "interactsh-journal-" + segment + "-index";
+    }
+
+    private static String eventsKey(int segment) {
+        return "interactsh-journal-" + segment + "-events";
+    }
+}
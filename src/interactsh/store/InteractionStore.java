@@ -0,0 +1,165 @@
+package interactsh.store;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.swing.SwingUtilities;
+
+import interactsh.InteractshEntry;
+
+/**
+ * Ordered log of interactions with a bounded in-memory footprint.
+ *
+ * Table columns (protocol, unique ID, address, time, read flag) always stay in
+ * memory. Once the number of resident payloads or their estimated size exceeds
+ * the configured caps, the oldest decrypted events are written to a temporary
+ * spill file and released. They are read back when the entry is viewed.
+ *
+ * The spill file is written on a dedicated background thread, so adding
+ * entries from the EDT never touches the disk; each entry's reload source is
+ * swapped in on the EDT once its event has been written.
+ */
+public class InteractionStore {
+
+    private final List<InteractshEntry> entries = new ArrayList<>();
+    private final Deque<InteractshEntry> resident = new ArrayDeque<>();
+    private final ExecutorService writer;
+    private final Executor swapExecutor;
+    private long residentBytes = 0;
+    private SpillFile spillFile;
+    // Bumped by clear(), so spills queued before it are dropped.
+    private long generation = 0;
+
+    public InteractionStore() {
+        this(SwingUtilities::invokeLater);
+    }
+
+    /**
+     * @param swapExecutor where spilled entries release their event
+     */
+    public InteractionStore(Executor swapExecutor) {
+        this.swapExecutor = swapExecutor;
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "interactsh-spill");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized InteractshEntry get(int index) {
+        return entries.get(index);
+    }
+
+    public void addAll(Collection<InteractshEntry> newEntries) {
+        addAll(newEntries, burp.gui.Config.getStoreMaxEntries(),
+                burp.gui.Config.getStoreMaxMegabytes() * 1024L * 1024L);
+    }
+
+    synchronized void addAll(Collection<InteractshEntry> newEntries, int maxEntries, long maxBytes) {
+        for (InteractshEntry entry : newEntries) {
+            entries.add(entry);
+            resident.addLast(entry);
+            residentBytes += entry.estimatePayloadSize();
+        }
+        evictIfNeeded(maxEntries, maxBytes);
+    }
+
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+        resident.clear();
+        residentBytes = 0;
+        SpillFile file = spillFile;
+        spillFile = null;
+        if (file != null) {
+            // Behind any spill still writing to it.
+            writer.submit(file::delete);
+        }
+        InteractshEntry.clearViewCache();
+    }
+
+    public void close() {
+        clear();
+        writer.shutdown();
+    }
+
+    private void evictIfNeeded(int maxEntries, long maxBytes) {
+        List<InteractshEntry> victims = new ArrayList<>();
+        while (!resident.isEmpty() && (resident.size() > maxEntries || residentBytes > maxBytes)) {
+            InteractshEntry entry = resident.pollFirst();
+            residentBytes -= entry.estimatePayloadSize();
+            victims.add(entry);
+        }
+        if (!victims.isEmpty()) {
+            long spillGeneration = generation;
+            writer.submit(() -> spill(victims, spillGeneration));
+        }
+    }
+
+    private void spill(List<InteractshEntry> victims, long spillGeneration) {
+        SpillFile file;
+        synchronized (this) {
+            if (spillGeneration != generation) {
+                return;
+            }
+            file = spillFile;
+            if (file == null) {
+                try {
+                    file = new SpillFile();
+                } catch (IOException ex) {
+                    logError(ex);
+                    return;
+                }
+                spillFile = file;
+                burp.BurpExtender.debugLog("Spilling old interaction payloads to a temporary file.");
+            }
+        }
+
+        List<PayloadSource> sources = new ArrayList<>(victims.size());
+        for (InteractshEntry entry : victims) {
+            String event = entry.getResidentEvent();
+            if (event == null || entry.isReloadable()) {
+                sources.add(null);
+                continue;
+            }
+            try {
+                long offset = file.append(event);
+                SpillFile target = file;
+                sources.add(() -> target.read(offset)[0]);
+            } catch (IOException ex) {
+                logError(ex);
+                victims = victims.subList(0, sources.size());
+                break;
+            }
+        }
+
+        List<InteractshEntry> written = victims;
+        swapExecutor.execute(() -> {
+            synchronized (this) {
+                if (spillGeneration != generation) {
+                    return;
+                }
+            }
+            for (int i = 0; i < written.size(); i++) {
+                written.get(i).release(sources.get(i));
+            }
+        });
+    }
+
+    private static void logError(IOException ex) {
+        if (burp.BurpExtender.api != null) {
+            burp.BurpExtender.api.logging().logToError("Unable to spill interaction to disk: " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package interactsh.store;
+
+import java.io.IOException;
+
+/**
+ * Reloads the decrypted event of an entry whose payload is no longer in memory.
+ */
+public interface PayloadSource {
+    String load() throws IOException;
+}
@@ -0,0 +1,295 @@
+package interactsh.store;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import org.json.JSONObject;
+
+import interactsh.InteractshEntry;
+
+/**
+ * Inverted index over the searchable text of interactions.
+ *
+ * Indexed text is the protocol, unique ID, source address and origin of every
+ * entry, plus the full DNS name, SMTP sender and raw request (HTTP path,
+ * headers and body, DNS query, SMTP session) of entries whose event is still in
+ * memory. Events that were spilled or restored from the journal are not read
+ * back for indexing, so those entries are found by their columns only. Text is
+ * split into lower-case tokens of letters, digits and {@code . - _ : @ /}; each
+ * token is indexed whole and as its alphanumeric parts, so {@code evil.com}
+ * is found by {@code evil.com}, {@code evil} and {@code com}. Query terms match
+ * token prefixes and all terms must match.
+ *
+ * Postings are ascending arrays of log indices. Entries are indexed in order
+ * on a background thread; {@code onIndexed} is told which index range has
+ * become searchable. Once the postings hold more than {@value #MAX_POSTINGS}
+ * indices, the oldest quarter of the indexed entries is dropped from every
+ * token, so those entries no longer match any search.
+ */
+public class SearchIndex {
+
+    private static final int MAX_TOKEN_LENGTH = 64;
+    private static final int MAX_INDEXED_CHARS = 32 * 1024;
+    private static final int MAX_POSTINGS = 4_000_000;
+
+    private final TreeMap<String, Postings> tokens = new TreeMap<>();
+    private final ExecutorService indexer;
+    private final Consumer<int[]> onIndexed;
+    private volatile long generation = 0;
+    private long postingCount = 0;
+    private int firstIndexed = -1;
+    private int lastIndexed = -1;
+
+    /**
+     * @param onIndexed receives {@code {from, to}} for every batch that becomes
+     *                  searchable, on the indexing thread
+     */
+    public SearchIndex(Consumer<int[]> onIndexed) {
+        this.onIndexed = onIndexed;
+        this.indexer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "interactsh-search-index");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Queues entries that were appended to the log starting at {@code firstIndex}.
+     */
+    public void addAll(int firstIndex, List<InteractshEntry> entries) {
+        long batchGeneration = generation;
+        indexer.submit(() -> {
+            long started = System.nanoTime();
+            for (int i = 0; i < entries.size(); i++) {
+                if (batchGeneration != generation) {
+                    return;
+                }
+                index(firstIndex + i, entries.get(i), batchGeneration);
+            }
+            burp.BurpExtender.debugLog("Indexed " + entries.size() + " interactions for search in "
+                    + (System.nanoTime() - started) / 1_000_000 + " ms");
+            if (batchGeneration == generation) {
+                onIndexed.accept(new int[] { firstIndex, firstIndex + entries.size() });
+            }
+        });
+    }
+
+    /**
+     * Log indices of all indexed entries matching every term of {@code query}.
+     */
+    public BitSet search(String query) {
+        return search(query, 0);
+    }
+
+    /**
+     * Like {@link #search(String)}, limited to log indices from {@code fromIndex}.
+     */
+    public BitSet search(String query, int fromIndex) {
+        Set<String> terms = new HashSet<>();
+        tokenize(query, terms, false);
+
+        BitSet result = null;
+        synchronized (tokens) {
+            for (String term : terms) {
+                BitSet matches = new BitSet();
+                for (Postings postings : tokens.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+                    postings.addTo(matches, fromIndex);
+                }
+                if (result == null) {
+                    result = matches;
+                } else {
+                    result.and(matches);
+                }
+                if (result.isEmpty()) {
+                    break;
+                }
+            }
+        }
+        return (result == null) ? new BitSet() : result;
+    }
+
+    public int getTokenCount() {
+        synchronized (tokens) {
+            return tokens.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (tokens) {
+            generation++;
+            tokens.clear();
+            postingCount = 0;
+            firstIndexed = -1;
+            lastIndexed = -1;
+        }
+    }
+
+    public void close() {
+        clear();
+        indexer.shutdownNow();
+    }
+
+    private void index(int logIndex, InteractshEntry entry, long batchGeneration) {
+        Set<String> entryTokens = new HashSet<>();
+        tokenize(entry.protocol, entryTokens, true);
+        tokenize(entry.uid, entryTokens, true);
+        tokenize(entry.address, entryTokens, true);
+        tokenize(entry.getOrigin(), entryTokens, true);
+        String resident = entry.getResidentEvent();
+        if (resident != null) {
+            try {
+                JSONObject event = new JSONObject(resident);
+                tokenize(event.optString("full-id", ""), entryTokens, true);
+                tokenize(event.optString("smtp-from", ""), entryTokens, true);
+                tokenize(event.optString("raw-request", ""), entryTokens, true);
+            } catch (RuntimeException ex) {
+                burp.BurpExtender.debugLog("Unable to index interaction " + entry.uid + ": " + ex.getMessage());
+            }
+        }
+
+        synchronized (tokens) {
+            if (batchGeneration != generation) {
+                return;
+            }
+            for (String token : entryTokens) {
+                if (tokens.computeIfAbsent(token, k -> new Postings()).add(logIndex)) {
+                    postingCount++;
+                }
+            }
+            if (firstIndexed == -1) {
+                firstIndexed = logIndex;
+            }
+            lastIndexed = logIndex;
+            if (postingCount > MAX_POSTINGS) {
+                evictOldest();
+            }
+        }
+    }
+
+    // Called with the tokens lock held.
+    private void evictOldest() {
+        int cutoff = firstIndexed + Math.max(1, (lastIndexed - firstIndexed + 1) / 4);
+        Iterator<Postings> it = tokens.values().iterator();
+        while (it.hasNext()) {
+            Postings postings = it.next();
+            postingCount -= postings.removeBefore(cutoff);
+            if (postings.size == 0) {
+                it.remove();
+            }
+        }
+        burp.BurpExtender.debugLog("Search index full, interactions before #" + cutoff
+                + " are no longer searchable.");
+        firstIndexed = cutoff;
+    }
+
+    /**
+     * Splits text into lower-case tokens. With {@code withParts}, tokens that
+     * contain separators are also added as their alphanumeric parts.
+     */
+    static void tokenize(String text, Set<String> out, boolean withParts) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        int length = Math.min(text.length(), MAX_INDEXED_CHARS);
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            char c = (i < length) ? text.charAt(i) : ' ';
+            if (isTokenChar(c)) {
+                if (start == -1) {
+                    start = i;
+                }
+            } else if (start != -1) {
+                addToken(text.substring(start, i), out, withParts);
+                start = -1;
+            }
+        }
+    }
+
+    private static void addToken(String token, Set<String> out, boolean withParts) {
+        String lower = token.toLowerCase(Locale.ROOT);
+        out.add(truncate(lower));
+        if (!withParts) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            char c = (i < lower.length()) ? lower.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (start == -1) {
+                    start = i;
+                }
+            } else if (start != -1) {
+                if (start > 0 || i < lower.length()) {
+                    out.add(truncate(lower.substring(start, i)));
+                }
+                start = -1;
+            }
+        }
+    }
+
+    private static boolean isTokenChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '.' || c == '-' || c == '_' || c == ':' || c == '@'
+                || c == '/';
+    }
+
+    private static String truncate(String token) {
+        return (token.length() > MAX_TOKEN_LENGTH) ? token.substring(0, MAX_TOKEN_LENGTH) : token;
+    }
+
+    /**
+     * Ascending, duplicate-free log indices of one token.
+     */
+    private static class Postings {
+        private int[] data = new int[2];
+        private int size = 0;
+
+        boolean add(int logIndex) {
+            if (size > 0 && data[size - 1] == logIndex) {
+                return false;
+            }
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = logIndex;
+            return true;
+        }
+
+        /**
+         * Drops the indices below {@code cutoff} and returns how many there were.
+         */
+        int removeBefore(int cutoff) {
+            int i = Arrays.binarySearch(data, 0, size, cutoff);
+            if (i < 0) {
+                i = -i - 1;
+            }
+            if (i == 0) {
+                return 0;
+            }
+            System.arraycopy(data, i, data, 0, size - i);
+            size -= i;
+            if (size < data.length / 4) {
+                data = Arrays.copyOf(data, Math.max(2, size * 2));
+            }
+            return i;
+        }
+
+        void addTo(BitSet bits, int fromIndex) {
+            int i = (fromIndex <= 0) ? 0 : Arrays.binarySearch(data, 0, size, fromIndex);
+            if (i < 0) {
+                i = -i - 1;
+            }
+            for (; i < size; i++) {
+                bits.set(data[i]);
+            }
+        }
+    }
+}
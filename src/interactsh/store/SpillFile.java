@@ -0,0 +1,70 @@
+package interactsh.store;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Append-only temporary file holding evicted interaction payloads.
+ *
+ * Each record is a sequence of length-prefixed UTF-8 strings; a length of -1
+ * stands for null. Records are addressed by their start offset.
+ */
+public class SpillFile {
+
+    private final Path path;
+    private final RandomAccessFile file;
+
+    public SpillFile() throws IOException {
+        this.path = Files.createTempFile("interactsh-spill-", ".bin");
+        this.path.toFile().deleteOnExit();
+        this.file = new RandomAccessFile(path.toFile(), "rw");
+    }
+
+    public synchronized long append(String... parts) throws IOException {
+        long offset = file.length();
+        file.seek(offset);
+        file.writeInt(parts.length);
+        for (String part : parts) {
+            if (part == null) {
+                file.writeInt(-1);
+            } else {
+                byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+                file.writeInt(bytes.length);
+                file.write(bytes);
+            }
+        }
+        return offset;
+    }
+
+    public synchronized String[] read(long offset) throws IOException {
+        file.seek(offset);
+        String[] parts = new String[file.readInt()];
+        for (int i = 0; i < parts.length; i++) {
+            int length = file.readInt();
+            if (length >= 0) {
+                byte[] bytes = new byte[length];
+                file.readFully(bytes);
+                parts[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+        return parts;
+    }
+
+    public synchronized long length() throws IOException {
+        return file.length();
+    }
+
+    public synchronized void delete() {
+        try {
+            file.close();
+        } catch (IOException ignored) {
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+        }
+    }
+}
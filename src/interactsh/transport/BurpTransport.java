@@ -0,0 +1,47 @@
+package interactsh.transport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import burp.api.montoya.http.RequestOptions;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+
+/**
+ * Sends requests through Burp's own HTTP stack. Every request opens a fresh
+ * connection, which is announced with {@code Connection: close}, but it
+ * honours Burp's upstream proxy and TLS settings.
+ */
+public class BurpTransport implements Transport {
+
+    @Override
+    public HttpResponse send(HttpRequest request) {
+        return burp.BurpExtender.api.http().sendRequest(closing(request)).response();
+    }
+
+    @Override
+    public HttpResponse send(HttpRequest request, long timeoutMillis) {
+        RequestOptions options = RequestOptions.requestOptions().withResponseTimeout(timeoutMillis);
+        return burp.BurpExtender.api.http().sendRequest(closing(request), options).response();
+    }
+
+    @Override
+    public List<HttpRequestResponse> sendAll(List<HttpRequest> requests) {
+        List<HttpRequest> closing = new ArrayList<>(requests.size());
+        for (HttpRequest request : requests) {
+            closing.add(closing(request));
+        }
+        List<HttpRequestResponse> results = burp.BurpExtender.api.http().sendRequests(closing);
+        return (results == null) ? List.of() : results;
+    }
+
+    @Override
+    public String getName() {
+        return Transports.BURP;
+    }
+
+    private static HttpRequest closing(HttpRequest request) {
+        return request.withHeader("Connection", "close");
+    }
+}
@@ -0,0 +1,149 @@
+package interactsh.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+
+/**
+ * Sends requests over pooled keep-alive connections using the JDK HTTP client.
+ * Connections and TLS sessions are reused between polls, and batched requests
+ * are multiplexed when the server speaks HTTP/2.
+ *
+ * Unlike {@link BurpTransport}, traffic does not go through Burp's upstream
+ * proxy and server certificates are verified by the JVM.
+ */
+public class KeepAliveTransport implements Transport {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    // Headers the JDK client manages itself and refuses to accept.
+    private static final Set<String> RESTRICTED_REQUEST_HEADERS = Set.of("connection", "content-length",
+            "expect", "host", "upgrade");
+    // Headers that no longer describe the body once the JDK client decoded it.
+    private static final Set<String> SKIPPED_RESPONSE_HEADERS = Set.of("content-length", "transfer-encoding",
+            "connection");
+
+    private final ExecutorService executor;
+    private final HttpClient client;
+
+    public KeepAliveTransport() {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "interactsh-http-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .executor(executor)
+                .build();
+    }
+
+    @Override
+    public HttpResponse send(HttpRequest request) throws Exception {
+        return send(request, REQUEST_TIMEOUT.toMillis());
+    }
+
+    @Override
+    public HttpResponse send(HttpRequest request, long timeoutMillis) throws Exception {
+        java.net.http.HttpResponse<byte[]> response = client.send(toJdkRequest(request, timeoutMillis),
+                java.net.http.HttpResponse.BodyHandlers.ofByteArray());
+        return toBurpResponse(response);
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse> sendAsync(HttpRequest request, long timeoutMillis) {
+        return client.sendAsync(toJdkRequest(request, timeoutMillis),
+                java.net.http.HttpResponse.BodyHandlers.ofByteArray()).thenApply(this::toBurpResponse);
+    }
+
+    @Override
+    public List<HttpRequestResponse> sendAll(List<HttpRequest> requests) {
+        List<CompletableFuture<java.net.http.HttpResponse<byte[]>>> futures = new ArrayList<>(requests.size());
+        for (HttpRequest request : requests) {
+            futures.add(client.sendAsync(toJdkRequest(request, REQUEST_TIMEOUT.toMillis()),
+                    java.net.http.HttpResponse.BodyHandlers.ofByteArray()));
+        }
+
+        List<HttpRequestResponse> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            HttpResponse response = null;
+            try {
+                response = toBurpResponse(futures.get(i).join());
+            } catch (Exception ex) {
+                burp.BurpExtender.debugLog("Keep-alive request failed: " + ex.getMessage());
+            }
+            results.add(HttpRequestResponse.httpRequestResponse(requests.get(i), response));
+        }
+        return results;
+    }
+
+    @Override
+    public String getName() {
+        return Transports.KEEP_ALIVE;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private java.net.http.HttpRequest toJdkRequest(HttpRequest request, long timeoutMillis) {
+        byte[] body = request.body().getBytes();
+        java.net.http.HttpRequest.Builder builder = java.net.http.HttpRequest.newBuilder()
+                .uri(URI.create(request.url()))
+                .timeout(Duration.ofMillis(timeoutMillis))
+                .method(request.method(), body.length == 0
+                        ? java.net.http.HttpRequest.BodyPublishers.noBody()
+                        : java.net.http.HttpRequest.BodyPublishers.ofByteArray(body));
+
+        for (HttpHeader header : request.headers()) {
+            if (!RESTRICTED_REQUEST_HEADERS.contains(header.name().toLowerCase(Locale.ROOT))) {
+                builder.header(header.name(), header.value());
+            }
+        }
+        return builder.build();
+    }
+
+    private HttpResponse toBurpResponse(java.net.http.HttpResponse<byte[]> response) {
+        byte[] body = response.body() == null ? new byte[0] : response.body();
+
+        StringBuilder head = new StringBuilder();
+        head.append("HTTP/1.1 ").append(response.statusCode()).append("\r\n");
+        for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+            String name = header.getKey();
+            if (name.startsWith(":") || SKIPPED_RESPONSE_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                head.append(name).append(": ").append(value).append("\r\n");
+            }
+        }
+        head.append("Content-Length: ").append(body.length).append("\r\n\r\n");
+
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(head.length() + body.length);
+        raw.writeBytes(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+        raw.writeBytes(body);
+        return HttpResponse.httpResponse(ByteArray.byteArray(raw.toByteArray()));
+    }
+}
@@ -0,0 +1,67 @@
+package interactsh.transport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+
+/**
+ * Sends the register, poll and deregister requests of an Interactsh client.
+ */
+public interface Transport {
+
+    /**
+     * Sends a single request. Returns null when no response was received.
+     */
+    HttpResponse send(HttpRequest request) throws Exception;
+
+    /**
+     * Sends a single request that may be held open by the server for up to
+     * {@code timeoutMillis}.
+     */
+    HttpResponse send(HttpRequest request, long timeoutMillis) throws Exception;
+
+    /**
+     * Sends a request the server may hold open for up to {@code timeoutMillis}
+     * without blocking the caller. The future completes with the response, or
+     * null when none was received. By default the request runs on a thread
+     * reserved for held requests, never on the session scheduler.
+     */
+    default CompletableFuture<HttpResponse> sendAsync(HttpRequest request, long timeoutMillis) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return send(request, timeoutMillis);
+            } catch (Exception ex) {
+                throw new CompletionException(ex);
+            }
+        }, Transports.heldRequests());
+    }
+
+    /**
+     * Sends several requests to the same server. Each result pairs a request
+     * with its response, which is null when the request failed. Results may be
+     * in any order, so callers match them on the request they answer.
+     */
+    default List<HttpRequestResponse> sendAll(List<HttpRequest> requests) throws Exception {
+        List<HttpRequestResponse> results = new ArrayList<>(requests.size());
+        for (HttpRequest request : requests) {
+            results.add(HttpRequestResponse.httpRequestResponse(request, send(request)));
+        }
+        return results;
+    }
+
+    /**
+     * Short name shown in logs and used to group batched polls.
+     */
+    String getName();
+
+    /**
+     * Releases pooled connections and threads.
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,59 @@
+package interactsh.transport;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out the shared transport instance for the configured transport name.
+ */
+public class Transports {
+
+    public static final String BURP = "BURP";
+    public static final String KEEP_ALIVE = "KEEP_ALIVE";
+
+    private static final BurpTransport burpTransport = new BurpTransport();
+    private static KeepAliveTransport keepAliveTransport;
+    private static ExecutorService heldRequests;
+
+    public static synchronized Transport get(String name) {
+        if (KEEP_ALIVE.equalsIgnoreCase(name)) {
+            if (keepAliveTransport == null) {
+                keepAliveTransport = new KeepAliveTransport();
+            }
+            return keepAliveTransport;
+        }
+        return burpTransport;
+    }
+
+    /**
+     * Threads for long polls of transports without an asynchronous client. One
+     * thread per held request, so they never queue behind each other or occupy
+     * the session scheduler.
+     */
+    static synchronized ExecutorService heldRequests() {
+        if (heldRequests == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            heldRequests = Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "interactsh-long-poll-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return heldRequests;
+    }
+
+    /**
+     * Closes pooled connections. A later {@link #get} starts a fresh pool.
+     */
+    public static synchronized void shutdown() {
+        if (heldRequests != null) {
+            heldRequests.shutdownNow();
+            heldRequests = null;
+        }
+        if (keepAliveTransport != null) {
+            keepAliveTransport.close();
+            keepAliveTransport = null;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package burp;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import burp.api.montoya.internal.MontoyaObjectFactory;
+import burp.api.montoya.internal.ObjectFactoryLocator;
+import burp.api.montoya.logging.Logging;
+import burp.api.montoya.persistence.PersistedList;
+import burp.api.montoya.persistence.PersistedObject;
+import burp.api.montoya.persistence.Persistence;
+import burp.api.montoya.persistence.Preferences;
+
+/**
+ * Just enough of Burp for the extension's networking and storage code to run
+ * in a test: in-memory preferences and project data, a log that records
+ * errors, and plain implementations of the HTTP message types the client and
+ * the keep-alive transport use. Anything else throws
+ * {@link UnsupportedOperationException}.
+ */
+public final class FakeBurp {
+	private final Map<String, String> preferences = new ConcurrentHashMap<>();
+	private final List<String> errors = new CopyOnWriteArrayList<>();
+	private final Map<String, Object> projectData = new ConcurrentHashMap<>();
+	private final List<String> projectWrites = new CopyOnWriteArrayList<>();
+	private final PersistedObject extensionData = stub(PersistedObject.class, this::projectData);
+
+	private FakeBurp() {
+	}
+
+	/**
+	 * Installs the fake as {@link BurpExtender#api} and as Montoya's object
+	 * factory. Undo with {@link #uninstall()}.
+	 */
+	public static FakeBurp install(Map<String, String> preferences) {
+		FakeBurp burp = new FakeBurp();
+		burp.preferences.putAll(preferences);
+		ObjectFactoryLocator.FACTORY = stub(MontoyaObjectFactory.class, (name, args) -> {
+			switch (name) {
+				case "httpService":
+					return service((String) args[0], (Integer) args[1], (Boolean) args[2]);
+				case "httpRequest":
+					return request((HttpService) args[0], (String) args[1]);
+				case "byteArray":
+					return bytes((byte[]) args[0]);
+				case "httpResponse":
+					return response(((ByteArray) args[0]).getBytes());
+				case "persistedStringList":
+					return stringList(List.of());
+				default:
+					throw new UnsupportedOperationException(name);
+			}
+		});
+		Preferences prefs = stub(Preferences.class, (name, args) -> {
+			switch (name) {
+				case "getString":
+					return burp.preferences.get(args[0]);
+				case "setString":
+					burp.preferences.put((String) args[0], (String) args[1]);
+					return null;
+				default:
+					throw new UnsupportedOperationException(name);
+			}
+		});
+		Persistence persistence = stub(Persistence.class, (name, args) -> {
+			switch (name) {
+				case "preferences":
+					return prefs;
+				case "extensionData":
+					return burp.extensionData;
+				default:
+					throw new UnsupportedOperationException(name);
+			}
+		});
+		Logging logging = stub(Logging.class, (name, args) -> {
+			if (name.startsWith("logToError") && args != null && args[0] instanceof String) {
+				burp.errors.add((String) args[0]);
+			}
+			return null;
+		});
+		BurpExtender.api = stub(MontoyaApi.class, (name, args) -> {
+			switch (name) {
+				case "persistence":
+					return persistence;
+				case "logging":
+					return logging;
+				default:
+					throw new UnsupportedOperationException(name);
+			}
+		});
+		BurpExtender.unloading = false;
+		return burp;
+	}
+
+	public static void uninstall() {
+		BurpExtender.api = null;
+		ObjectFactoryLocator.FACTORY = null;
+	}
+
+	public List<String> getErrors() {
+		return errors;
+	}
+
+	/**
+	 * The project's extension data. Lists are copied in and out, as a real
+	 * project would, so changes only stick once they are set again.
+	 */
+	public PersistedObject getExtensionData() {
+		return extensionData;
+	}
+
+	/**
+	 * Keys written to the project data so far, in order.
+	 */
+	public List<String> getProjectWrites() {
+		return projectWrites;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Object projectData(String name, Object[] args) {
+		if (name.startsWith("get")) {
+			Object value = projectData.get(args[0]);
+			return (value instanceof List) ? stringList((List<String>) value) : value;
+		}
+		if (name.startsWith("set")) {
+			Object value = (args[1] instanceof List) ? List.copyOf((List<String>) args[1]) : args[1];
+			projectData.put((String) args[0], value);
+			projectWrites.add((String) args[0]);
+			return null;
+		}
+		if (name.startsWith("delete")) {
+			projectData.remove(args[0]);
+			projectWrites.add((String) args[0]);
+			return null;
+		}
+		throw new UnsupportedOperationException(name);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static PersistedList<String> stringList(List<String> values) {
+		List<String> backing = new ArrayList<>(values);
+		return (PersistedList<String>) Proxy.newProxyInstance(PersistedList.class.getClassLoader(),
+				new Class<?>[] { PersistedList.class }, (proxy, method, args) -> {
+					try {
+						return method.invoke(backing, args);
+					} catch (InvocationTargetException ex) {
+						throw ex.getCause();
+					}
+				});
+	}
+
+	private static HttpService service(String host, int port, boolean secure) {
+		return stub(HttpService.class, (name, args) -> {
+			switch (name) {
+				case "host":
+					return host;
+				case "port":
+					return port;
+				case "secure":
+					return secure;
+				case "toString":
+					return (secure ? "https://" : "http://") + host + ":" + port;
+				default:
+					throw new UnsupportedOperationException(name);
+			}
+		});
+	}
+
+	private static HttpRequest request(HttpService service, String raw) {
+		int headEnd = raw.indexOf("\r\n\r\n");
+		String[] lines = raw.substring(0, headEnd).split("\r\n");
+		String[] requestLine = lines[0].split(" ");
+		List<HttpHeader> headers = new ArrayList<>();
+		for (String line : Arrays.asList(lines).subList(1, lines.length)) {
+			int colon = line.indexOf(':');
+			String headerName = line.substring(0, colon);
+			String value = line.substring(colon + 1).trim();
+			headers.add(stub(HttpHeader.class, (name, args) -> {
+				switch (name) {
+					case "name":
+						return headerName;
+					case "value":
+						return value;
+					default:
+						throw new UnsupportedOperationException(name);
+				}
+			}));
+		}
+		ByteArray body = bytes(raw.substring(headEnd + 4).getBytes(StandardCharsets.UTF_8));
+		String url = service + requestLine[1];
+		return stub(HttpRequest.class, (name, args) -> {
+			switch (name) {
+				case "method":
+					return requestLine[0];
+				case "path":
+					return requestLine[1];
+				case "url":
+					return URI.create(url).toString();
+				case "headers":
+					return headers;
+				case "body":
+					return body;
+				case "httpService":
+					return service;
+				case "withHeader":
+					return null;
+				case "toString":
+					return raw;
+				default:
+					throw new UnsupportedOperationException(name);
+			}
+		});
+	}
+
+	private static HttpResponse response(byte[] raw) {
+		String text = new String(raw, StandardCharsets.ISO_8859_1);
+		int headEnd = text.indexOf("\r\n\r\n");
+		int status = Integer.parseInt(text.substring(0, text.indexOf("\r\n")).split(" ")[1]);
+		ByteArray body = bytes(Arrays.copyOfRange(raw, headEnd + 4, raw.length));
+		return stub(HttpResponse.class, (name, args) -> {
+			switch (name) {
+				case "statusCode":
+					return (short) status;
+				case "body":
+					return body;
+				case "bodyToString":
+					return new String(body.getBytes(), StandardCharsets.UTF_8);
+				case "toString":
+					return text;
+				default:
+					throw new UnsupportedOperationException(name);
+			}
+		});
+	}
+
+	private static ByteArray bytes(byte[] data) {
+		return stub(ByteArray.class, (name, args) -> {
+			switch (name) {
+				case "length":
+					return data.length;
+				case "getByte":
+					return data[(Integer) args[0]];
+				case "getBytes":
+					return data.clone();
+				case "subArray":
+					return bytes(Arrays.copyOfRange(data, (Integer) args[0], (Integer) args[1]));
+				case "toString":
+					return new String(data, StandardCharsets.ISO_8859_1);
+				default:
+					throw new UnsupportedOperationException(name);
+			}
+		});
+	}
+
+	private interface Handler {
+		Object invoke(String method, Object[] args);
+	}
+
+	private static <T> T stub(Class<T> type, Handler handler) {
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+						case "equals":
+							return proxy == args[0];
+						case "hashCode":
+							return System.identityHashCode(proxy);
+						default:
+							return handler.invoke(method.getName(), args);
+					}
+				}));
+	}
+}
@@ -0,0 +1,57 @@
+package burp.gui;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+
+import interactsh.InteractshEntry;
+
+class EntryFilterTest {
+
+	@Test
+	void relativeTimeIsMeasuredWhenTheEntryIsTested() throws InterruptedException {
+		Predicate<InteractshEntry> recent = EntryFilter.compile("time>-1s");
+		InteractshEntry entry = entry("10.0.0.1", Instant.now().minusMillis(500));
+
+		assertTrue(recent.test(entry));
+		Thread.sleep(700);
+		assertFalse(recent.test(entry));
+	}
+
+	@Test
+	void onlyRelativeTimesSlide() {
+		assertTrue(EntryFilter.slides("protocol:dns and time>-5m"));
+		assertTrue(EntryFilter.slides("not (time<-1h)"));
+		assertFalse(EntryFilter.slides("time>2024-01-01T00:00:00Z"));
+		assertFalse(EntryFilter.slides("uid:/a-b/ and src:10.0.0.0/8"));
+	}
+
+	@Test
+	void addressIsParsedOnceAndCached() {
+		Predicate<InteractshEntry> internal = EntryFilter.compile("src:10.0.0.0/8");
+		InteractshEntry entry = entry("10.1.2.3:5555", Instant.now());
+
+		assertTrue(internal.test(entry));
+		assertArrayEquals(new byte[] { 10, 1, 2, 3 }, entry.getParsedAddress());
+		assertTrue(internal.test(entry));
+		assertFalse(EntryFilter.compile("src:192.168.0.0/16").test(entry));
+	}
+
+	@Test
+	void hostnameAddressNeverMatches() {
+		InteractshEntry entry = entry("example.com", Instant.now());
+
+		assertFalse(EntryFilter.compile("src:10.0.0.0/8").test(entry));
+		assertFalse(EntryFilter.compile("src:::/0").test(entry));
+	}
+
+	private static InteractshEntry entry(String address, Instant timestamp) {
+		return new InteractshEntry("{\"protocol\":\"dns\",\"unique-id\":\"abc\",\"full-id\":\"abc\","
+				+ "\"q-type\":\"A\",\"remote-address\":\"" + address + "\",\"timestamp\":\"" + timestamp + "\"}");
+	}
+}
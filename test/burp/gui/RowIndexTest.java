@@ -0,0 +1,160 @@
+package burp.gui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class RowIndexTest {
+
+	private static final String[] PROTOCOLS = { "dns", "http", "https", "smtp" };
+
+	// Enough rows to split chunks many times over.
+	private static final int ROWS = RowIndex.IntList.CHUNK_SIZE * 8;
+
+	@Test
+	void sortedInsertsMatchAFullSort() {
+		int[] keys = randomKeys(ROWS, 97);
+		RowIndex rows = new RowIndex(i -> protocolOf(i), (a, b) -> Integer.compare(keys[a], keys[b]));
+		for (int i = 0; i < ROWS; i++) {
+			rows.insert(i);
+		}
+
+		List<Integer> expected = sortedBy(keys, IntStream.range(0, ROWS).boxed().collect(Collectors.toList()));
+		assertView(expected, rows);
+
+		rows.setAscending(false);
+		List<Integer> reversed = new ArrayList<>(expected);
+		Collections.reverse(reversed);
+		assertView(reversed, rows);
+	}
+
+	@Test
+	void insertReturnsTheViewRow() {
+		int[] keys = randomKeys(ROWS, 1000);
+		RowIndex rows = new RowIndex(i -> protocolOf(i), (a, b) -> Integer.compare(keys[a], keys[b]));
+		rows.setAscending(false);
+		for (int i = 0; i < ROWS; i++) {
+			int viewRow = rows.insert(i);
+			assertEquals(i, rows.modelIndex(viewRow));
+		}
+	}
+
+	@Test
+	void bulkInsertMatchesSingleInserts() {
+		int[] keys = randomKeys(ROWS, 50);
+		RowIndex single = new RowIndex(i -> protocolOf(i), (a, b) -> Integer.compare(keys[a], keys[b]));
+		RowIndex bulk = new RowIndex(i -> protocolOf(i), (a, b) -> Integer.compare(keys[a], keys[b]));
+		for (int i = 0; i < ROWS; i++) {
+			single.insert(i);
+		}
+		bulk.insertAll(0, ROWS / 2);
+		bulk.insertAll(ROWS / 2, ROWS);
+
+		for (int i = 0; i < ROWS; i++) {
+			assertEquals(single.modelIndex(i), bulk.modelIndex(i));
+		}
+	}
+
+	@Test
+	void bucketViewsGroupHttpsWithHttp() {
+		int[] keys = randomKeys(ROWS, 300);
+		RowIndex rows = new RowIndex(i -> protocolOf(i), (a, b) -> Integer.compare(keys[a], keys[b]));
+		rows.setProtocol("HTTP");
+		List<Integer> shown = new ArrayList<>();
+		for (int i = 0; i < ROWS; i++) {
+			int viewRow = rows.insert(i);
+			if (RowIndex.bucketOf(protocolOf(i)).equals("http")) {
+				assertEquals(i, rows.modelIndex(viewRow));
+				shown.add(i);
+			} else {
+				assertEquals(-1, viewRow);
+				assertEquals(-1, rows.viewRow(i));
+			}
+		}
+		assertView(sortedBy(keys, shown), rows);
+
+		rows.setProtocol("dns");
+		assertView(sortedBy(keys, modelIndicesOf("dns")), rows);
+	}
+
+	@Test
+	void narrowedViewsFollowSearchFilterAndResort() {
+		int[] keys = randomKeys(ROWS, 200);
+		RowIndex rows = new RowIndex(i -> protocolOf(i), (a, b) -> Integer.compare(keys[a], keys[b]));
+		int half = ROWS / 2;
+		rows.insertAll(0, half);
+
+		BitSet matches = new BitSet();
+		for (int i = 0; i < half; i += 3) {
+			matches.set(i);
+		}
+		rows.setSearch(matches);
+		for (int i = half; i < ROWS; i++) {
+			assertEquals(-1, rows.insert(i));
+		}
+		for (int i = half + (3 - half % 3) % 3; i < ROWS; i += 3) {
+			int viewRow = rows.addSearchMatch(i);
+			assertEquals(i, rows.modelIndex(viewRow));
+		}
+		List<Integer> searched = IntStream.range(0, ROWS).filter(i -> i % 3 == 0).boxed()
+				.collect(Collectors.toList());
+		assertView(sortedBy(keys, searched), rows);
+
+		BitSet even = new BitSet();
+		for (int i = 0; i < ROWS; i += 2) {
+			even.set(i);
+		}
+		rows.setFilter(i -> i % 2 == 0, even);
+		rows.setProtocol("dns");
+		List<Integer> narrowed = modelIndicesOf("dns").stream().filter(i -> i % 6 == 0)
+				.collect(Collectors.toList());
+		assertView(sortedBy(keys, narrowed), rows);
+
+		rows.sortBy((a, b) -> Integer.compare(b, a));
+		narrowed.sort(Comparator.reverseOrder());
+		assertView(narrowed, rows);
+	}
+
+	private static void assertView(List<Integer> expected, RowIndex rows) {
+		assertEquals(expected.size(), rows.size());
+		for (int viewRow = 0; viewRow < expected.size(); viewRow++) {
+			int modelIndex = expected.get(viewRow);
+			assertEquals(modelIndex, rows.modelIndex(viewRow));
+			assertEquals(viewRow, rows.viewRow(modelIndex));
+		}
+	}
+
+	// Model indices break ties, as in RowIndex.
+	private static List<Integer> sortedBy(int[] keys, List<Integer> modelIndices) {
+		List<Integer> sorted = new ArrayList<>(modelIndices);
+		sorted.sort(Comparator.<Integer>comparingInt(i -> keys[i]).thenComparingInt(i -> i));
+		return sorted;
+	}
+
+	private static List<Integer> modelIndicesOf(String protocol) {
+		return IntStream.range(0, ROWS).filter(i -> protocolOf(i).equals(protocol)).boxed()
+				.collect(Collectors.toList());
+	}
+
+	private static String protocolOf(int modelIndex) {
+		return PROTOCOLS[modelIndex % PROTOCOLS.length];
+	}
+
+	private static int[] randomKeys(int count, int bound) {
+		Random random = new Random(count * 31L + bound);
+		int[] keys = new int[count];
+		for (int i = 0; i < count; i++) {
+			keys[i] = random.nextInt(bound);
+		}
+		return keys;
+	}
+}
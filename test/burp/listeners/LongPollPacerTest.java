@@ -0,0 +1,36 @@
+package burp.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LongPollPacerTest {
+	private static final long MIN_HOLD = 1000;
+
+	@Test
+	void heldPollIsRearmedAtOnce() {
+		assertEquals(0, new LongPollPacer().next(25_000, MIN_HOLD));
+	}
+
+	@Test
+	void quickReturnsBackOffUpToTheMaximum() {
+		LongPollPacer pacer = new LongPollPacer();
+		assertEquals(200, pacer.next(5, MIN_HOLD));
+		assertEquals(400, pacer.next(5, MIN_HOLD));
+		assertEquals(800, pacer.next(5, MIN_HOLD));
+		assertEquals(1600, pacer.next(5, MIN_HOLD));
+		assertEquals(2000, pacer.next(5, MIN_HOLD));
+		assertEquals(2000, pacer.next(5, MIN_HOLD));
+	}
+
+	@Test
+	void firstCallbackAfterQuietPeriodIsPickedUpWithinASecond() {
+		LongPollPacer pacer = new LongPollPacer();
+		pacer.next(5, MIN_HOLD);
+		pacer.next(5, MIN_HOLD);
+		pacer.next(25_000, MIN_HOLD);
+
+		assertTrue(pacer.next(5, MIN_HOLD) < 1000);
+	}
+}
@@ -0,0 +1,228 @@
+package burp.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.spec.MGF1ParameterSpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PSource;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import burp.FakeBurp;
+import interactsh.InteractshClient;
+import interactsh.InteractshEntry;
+import interactsh.transport.Transports;
+
+/**
+ * Runs a session in long-poll mode against a local server that holds polls
+ * open until an interaction arrives, like an interactsh server with
+ * {@code wait} support.
+ */
+class LongPollStubServerTest {
+	private static final Pattern WAIT = Pattern.compile("[?&]wait=(\\d+)");
+
+	private StubServer server;
+	private FakeBurp burp;
+	private SessionManager manager;
+	private InteractshListener listener;
+
+	@BeforeEach
+	void start() throws IOException {
+		server = new StubServer();
+		burp = FakeBurp.install(Map.of("interactsh-server", "127.0.0.1", "interactsh-port",
+				String.valueOf(server.port()), "interactsh-uses-tls", "false", "interactsh-transport",
+				Transports.KEEP_ALIVE, "interactsh-receive-mode", "LONG_POLL", "interactsh-resume-session", "false"));
+		// One worker: a held poll that occupied it would stall everything else.
+		manager = new SessionManager(1);
+	}
+
+	@AfterEach
+	void stop() {
+		if (listener != null) {
+			listener.close();
+		}
+		manager.shutdown();
+		server.stop();
+		Transports.shutdown();
+		FakeBurp.uninstall();
+	}
+
+	@Test
+	void interactionIsDeliveredWhileThePollIsHeld() throws Exception {
+		BlockingQueue<InteractshEntry> delivered = new LinkedBlockingQueue<>();
+		listener = new InteractshListener(manager, () -> 60, false, null, null);
+		InteractshClient client = awaitClient();
+		client.setSink(delivered::addAll);
+
+		assertTrue(server.held.await(10, TimeUnit.SECONDS), "poll was never held");
+
+		CountDownLatch workerFree = new CountDownLatch(1);
+		manager.submit(workerFree::countDown);
+		assertTrue(workerFree.await(500, TimeUnit.MILLISECONDS), "held poll occupies the scheduler");
+
+		long sent = System.nanoTime();
+		server.interact("c8u1qhn1kr5r7cu2a9hgyyyyyyyyyyyyy");
+		InteractshEntry entry = delivered.poll(1, TimeUnit.SECONDS);
+		long elapsedMillis = (System.nanoTime() - sent) / 1_000_000;
+
+		assertNotNull(entry, "interaction was not delivered within a second");
+		assertEquals("c8u1qhn1kr5r7cu2a9hgyyyyyyyyyyyyy", entry.uid);
+		assertTrue(elapsedMillis < 1000, "delivered after " + elapsedMillis + " ms");
+	}
+
+	private InteractshClient awaitClient() throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (System.nanoTime() < deadline) {
+			InteractshClient client = listener.getClient();
+			if (client != null) {
+				return client;
+			}
+			Thread.sleep(10);
+		}
+		throw new AssertionError("session did not register: " + burp.getErrors());
+	}
+
+	/**
+	 * Registers any client and answers {@code /poll?wait=N} once an interaction
+	 * is queued or N seconds have passed.
+	 */
+	private static class StubServer {
+		private final HttpServer http;
+		private final ExecutorService executor = Executors.newCachedThreadPool();
+		private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+		private final CountDownLatch held = new CountDownLatch(1);
+		private final SecureRandom random = new SecureRandom();
+		private volatile PublicKey clientKey;
+
+		StubServer() throws IOException {
+			http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+			http.setExecutor(executor);
+			http.createContext("/register", this::register);
+			http.createContext("/poll", this::poll);
+			http.createContext("/deregister", exchange -> reply(exchange, "{}"));
+			http.start();
+		}
+
+		int port() {
+			return http.getAddress().getPort();
+		}
+
+		void interact(String uid) {
+			events.add(new JSONObject().put("protocol", "dns").put("unique-id", uid).put("full-id", uid)
+					.put("q-type", "A").put("remote-address", "192.0.2.1")
+					.put("timestamp", Instant.now().toString()).toString());
+		}
+
+		void stop() {
+			http.stop(0);
+			executor.shutdownNow();
+		}
+
+		private void register(HttpExchange exchange) throws IOException {
+			JSONObject body = new JSONObject(new String(exchange.getRequestBody().readAllBytes(),
+					StandardCharsets.UTF_8));
+			String pem = new String(Base64.getDecoder().decode(body.getString("public-key")), StandardCharsets.UTF_8);
+			String der = pem.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+			try {
+				clientKey = KeyFactory.getInstance("RSA")
+						.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(der)));
+			} catch (Exception ex) {
+				throw new IOException(ex);
+			}
+			reply(exchange, "{\"message\":\"registration successful\"}");
+		}
+
+		private void poll(HttpExchange exchange) throws IOException {
+			Matcher wait = WAIT.matcher(exchange.getRequestURI().getRawQuery());
+			String event;
+			try {
+				if (wait.find()) {
+					held.countDown();
+					event = events.poll(Integer.parseInt(wait.group(1)), TimeUnit.SECONDS);
+				} else {
+					event = events.poll();
+				}
+			} catch (InterruptedException ex) {
+				exchange.close();
+				return;
+			}
+			if (event == null) {
+				reply(exchange, "{\"data\":[]}");
+				return;
+			}
+			try {
+				reply(exchange, encrypt(List.of(event)));
+			} catch (IOException ex) {
+				throw ex;
+			} catch (Exception ex) {
+				throw new IOException(ex);
+			}
+		}
+
+		private String encrypt(List<String> plain) throws Exception {
+			byte[] aesKey = new byte[32];
+			random.nextBytes(aesKey);
+			JSONArray data = new JSONArray();
+			for (String event : plain) {
+				byte[] iv = new byte[16];
+				random.nextBytes(iv);
+				Cipher aes = Cipher.getInstance("AES/CTR/NoPadding");
+				aes.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(aesKey, "AES"), new IvParameterSpec(iv));
+				byte[] encrypted = aes.doFinal(event.getBytes(StandardCharsets.UTF_8));
+				byte[] record = new byte[iv.length + encrypted.length];
+				System.arraycopy(iv, 0, record, 0, iv.length);
+				System.arraycopy(encrypted, 0, record, iv.length, encrypted.length);
+				data.put(Base64.getEncoder().encodeToString(record));
+			}
+
+			Cipher rsa = Cipher.getInstance("RSA/ECB/OAEPPadding");
+			rsa.init(Cipher.ENCRYPT_MODE, clientKey, new OAEPParameterSpec("SHA-256", "MGF1",
+					new MGF1ParameterSpec("SHA-256"), PSource.PSpecified.DEFAULT));
+			String wrappedKey = Base64.getEncoder().encodeToString(rsa.doFinal(aesKey));
+			return new JSONObject().put("data", data).put("aes_key", wrappedKey).toString();
+		}
+
+		private static void reply(HttpExchange exchange, String body) throws IOException {
+			byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, bytes.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		}
+	}
+}
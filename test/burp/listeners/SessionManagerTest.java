@@ -0,0 +1,90 @@
+package burp.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+
+class SessionManagerTest {
+
+	@Test
+	void outOfOrderResponsesAreMatchedByCorrelationId() {
+		Map<String, String> byId = new HashMap<>(Map.of("aaaa", "session A", "bbbb", "session B", "cccc",
+				"session C"));
+		HttpResponse forA = response();
+		HttpResponse forB = response();
+		HttpResponse forC = response();
+
+		Map<String, HttpResponse> matched = SessionManager.matchResponses(byId,
+				List.of(result("cccc", forC), result("aaaa", forA), result("bbbb", forB)));
+
+		assertSame(forA, matched.get("session A"));
+		assertSame(forB, matched.get("session B"));
+		assertSame(forC, matched.get("session C"));
+		assertTrue(byId.isEmpty());
+	}
+
+	@Test
+	void unansweredSessionsStayUnmatched() {
+		Map<String, String> byId = new HashMap<>(Map.of("aaaa", "session A", "bbbb", "session B"));
+
+		Map<String, HttpResponse> matched = SessionManager.matchResponses(byId,
+				Arrays.asList(result("bbbb", null), null, result("zzzz", response())));
+
+		assertTrue(matched.isEmpty());
+		assertEquals(Map.of("aaaa", "session A", "bbbb", "session B"), byId);
+	}
+
+	@Test
+	void correlationIdIsReadFromTheQuery() {
+		assertEquals("abc", SessionManager.correlationIdOf("/poll?id=abc&secret=s&wait=25"));
+		assertEquals("abc", SessionManager.correlationIdOf("/poll?secret=s&id=abc"));
+		assertNull(SessionManager.correlationIdOf("/poll?secret=s"));
+		assertNull(SessionManager.correlationIdOf("/poll"));
+	}
+
+	private static HttpRequestResponse result(String correlationId, HttpResponse response) {
+		HttpRequest request = stub(HttpRequest.class, "path", "/poll?id=" + correlationId + "&secret=s");
+		return stub(HttpRequestResponse.class, "request", request, "response", response);
+	}
+
+	private static HttpResponse response() {
+		return stub(HttpResponse.class);
+	}
+
+	// Montoya's factories need a running Burp, so the interfaces are stubbed.
+	private static <T> T stub(Class<T> type, Object... methodsAndValues) {
+		Map<String, Object> values = new HashMap<>();
+		for (int i = 0; i < methodsAndValues.length; i += 2) {
+			values.put((String) methodsAndValues[i], methodsAndValues[i + 1]);
+		}
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+						case "equals":
+							return proxy == args[0];
+						case "hashCode":
+							return System.identityHashCode(proxy);
+						case "toString":
+							return type.getSimpleName();
+						default:
+							if (!values.containsKey(method.getName())) {
+								throw new UnsupportedOperationException(method.getName());
+							}
+							return values.get(method.getName());
+					}
+				}));
+	}
+}
@@ -0,0 +1,89 @@
+package burp.scanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import burp.api.montoya.http.message.HttpRequestResponse;
+import interactsh.InteractshEntry;
+
+class OutstandingPayloadsTest {
+
+	@Test
+	void nonceInUseIsRejected() {
+		OutstandingPayloads outstanding = new OutstandingPayloads();
+		OutstandingPayloads.Probe first = probe(System.currentTimeMillis() + 60_000);
+
+		assertTrue(outstanding.add(42, first));
+		assertFalse(outstanding.add(42, probe(System.currentTimeMillis() + 60_000)));
+		assertSame(first, outstanding.get(42));
+	}
+
+	@Test
+	void expiredProbesAreDropped() {
+		OutstandingPayloads outstanding = new OutstandingPayloads();
+		outstanding.add(1, probe(System.currentTimeMillis() - 1));
+		outstanding.add(2, probe(System.currentTimeMillis() + 60_000));
+
+		assertNull(outstanding.get(1));
+		assertEquals(1, outstanding.size());
+		assertTrue(outstanding.add(1, probe(System.currentTimeMillis() + 60_000)));
+	}
+
+	@Test
+	void shorterTtlIsEvictedBehindLongerOne() {
+		OutstandingPayloads outstanding = new OutstandingPayloads();
+		long now = System.currentTimeMillis();
+		// Sent before the TTL was lowered.
+		outstanding.add(1, probe(now + 60 * 60_000));
+		// Sent after it, and already past its shorter TTL.
+		outstanding.add(2, probe(now - 1));
+		outstanding.add(3, probe(now + 60_000));
+
+		assertNull(outstanding.get(2));
+		assertEquals(2, outstanding.size());
+		assertTrue(outstanding.get(1) != null && outstanding.get(3) != null);
+	}
+
+	@Test
+	void callbacksBeforeTheResponseAreHeldUntilSent() {
+		OutstandingPayloads.Probe probe = probe(System.currentTimeMillis() + 60_000);
+		InteractshEntry dns = entry("dns");
+		InteractshEntry http = entry("http");
+		HttpRequestResponse requestResponse = (HttpRequestResponse) Proxy.newProxyInstance(
+				HttpRequestResponse.class.getClassLoader(), new Class<?>[] { HttpRequestResponse.class },
+				(proxy, method, args) -> null);
+
+		assertNull(probe.requestResponseOrHold(dns));
+		assertNull(probe.requestResponseOrHold(http));
+		assertEquals(List.of(dns, http), probe.sent(requestResponse));
+		assertSame(requestResponse, probe.requestResponseOrHold(entry("smtp")));
+		assertEquals(List.of(), probe.sent(requestResponse));
+	}
+
+	@Test
+	void eachProtocolIsReportedOnce() {
+		OutstandingPayloads.Probe probe = probe(System.currentTimeMillis() + 60_000);
+
+		assertTrue(probe.markReported(1));
+		assertFalse(probe.markReported(1));
+		assertTrue(probe.markReported(2));
+	}
+
+	private static InteractshEntry entry(String protocol) {
+		return new InteractshEntry("{\"protocol\":\"" + protocol + "\",\"unique-id\":\"abc\",\"full-id\":\"abc\","
+				+ "\"remote-address\":\"10.0.0.1\",\"timestamp\":\"2026-01-01T00:00:00Z\"}");
+	}
+
+	private static OutstandingPayloads.Probe probe(long expiresAtMillis) {
+		return new OutstandingPayloads.Probe("c".repeat(20), "Scanner: https://example.com/ [q]", "q",
+				"payload.example", expiresAtMillis);
+	}
+}
@@ -0,0 +1,89 @@
+package interactsh;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+
+class PollResponseReaderTest {
+
+	private static final int CHUNK_SIZE = 512;
+
+	// The order the server writes the fields in: data first, aes_key last.
+	private static String response(int records) {
+		StringBuilder json = new StringBuilder("{\"data\":[");
+		for (int i = 0; i < records; i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			json.append('"').append(Base64.getEncoder().encodeToString(("record-" + i).getBytes())).append('"');
+		}
+		return json.append("],\"extra\":null,\"tld_data\":[\"oast.live\"],\"aes_key\":\"KEY\"}").toString();
+	}
+
+	@Test
+	void keyArrivesBeforeRecordsWhenDataComesFirst() throws Exception {
+		List<String> events = new ArrayList<>();
+		String json = response(3);
+		PollResponseReader.read(() -> new StringReader(json), new PollResponseReader.Handler() {
+			@Override
+			public void onKey(String aesKey) {
+				events.add("key:" + aesKey);
+			}
+
+			@Override
+			public void onRecord(byte[] payload) {
+				events.add(new String(payload));
+			}
+		});
+		assertEquals(List.of("key:KEY", "record-0", "record-1", "record-2"), events);
+	}
+
+	@Test
+	void buffersAtMostOneChunkWhenDataComesFirst() throws Exception {
+		int records = CHUNK_SIZE * 4 + 17;
+		List<Integer> chunkSizes = new ArrayList<>();
+		List<String> delivered = new ArrayList<>();
+		RecordChunker chunker = new RecordChunker(CHUNK_SIZE, (aesKey, chunk) -> {
+			assertEquals("KEY", aesKey);
+			chunkSizes.add(chunk.size());
+			for (byte[] record : chunk) {
+				delivered.add(new String(record));
+			}
+		});
+
+		String json = response(records);
+		PollResponseReader.read(() -> new StringReader(json), chunker);
+		chunker.finish();
+
+		assertTrue(chunker.getPeakBuffered() <= CHUNK_SIZE, "peak " + chunker.getPeakBuffered());
+		assertEquals(List.of(CHUNK_SIZE, CHUNK_SIZE, CHUNK_SIZE, CHUNK_SIZE, 17), chunkSizes);
+		assertEquals(records, delivered.size());
+		assertEquals("record-" + (records - 1), delivered.get(records - 1));
+	}
+
+	@Test
+	void recordsWithoutKeyAreRejected() {
+		RecordChunker chunker = new RecordChunker(CHUNK_SIZE, (aesKey, chunk) -> {
+		});
+		String json = "{\"data\":[\"" + Base64.getEncoder().encodeToString(new byte[] { 1 }) + "\"]}";
+		assertThrows(JSONException.class, () -> PollResponseReader.read(() -> new StringReader(json), chunker));
+	}
+
+	@Test
+	void emptyResponseHasNoKeyAndNoRecords() throws Exception {
+		RecordChunker chunker = new RecordChunker(CHUNK_SIZE, (aesKey, chunk) -> {
+			throw new AssertionError("no chunk expected");
+		});
+		PollResponseReader.read(() -> new StringReader("{\"data\":[],\"extra\":null}"), chunker);
+		chunker.finish();
+		assertEquals(0, chunker.getPeakBuffered());
+	}
+}
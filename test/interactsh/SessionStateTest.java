@@ -0,0 +1,42 @@
+package interactsh;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class SessionStateTest {
+	private static final byte[] KEY = new byte[32];
+	private static final byte[] PLAIN = "private key bytes".getBytes(StandardCharsets.UTF_8);
+
+	@Test
+	void sealedKeyRoundTrips() throws GeneralSecurityException {
+		byte[] sealed = SessionState.seal(PLAIN, KEY);
+
+		assertFalse(Arrays.equals(PLAIN, Arrays.copyOfRange(sealed, 12, 12 + PLAIN.length)));
+		assertArrayEquals(PLAIN, SessionState.unseal(sealed, KEY));
+	}
+
+	@Test
+	void otherInstallationCannotUnseal() throws GeneralSecurityException {
+		byte[] sealed = SessionState.seal(PLAIN, KEY);
+		byte[] otherKey = new byte[32];
+		otherKey[0] = 1;
+
+		assertThrows(GeneralSecurityException.class, () -> SessionState.unseal(sealed, otherKey));
+	}
+
+	@Test
+	void tamperedDataIsRejected() throws GeneralSecurityException {
+		byte[] sealed = SessionState.seal(PLAIN, KEY);
+		sealed[sealed.length - 1] ^= 1;
+
+		assertThrows(GeneralSecurityException.class, () -> SessionState.unseal(sealed, KEY));
+		assertThrows(GeneralSecurityException.class, () -> SessionState.unseal(new byte[4], KEY));
+	}
+}
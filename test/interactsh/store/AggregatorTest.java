@@ -0,0 +1,48 @@
+package interactsh.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+import interactsh.InteractshEntry;
+
+class AggregatorTest {
+
+    private static final Duration WINDOW = Duration.ofSeconds(60);
+
+    @Test
+    void mergesRepeatedLiveCallbacks() {
+        Aggregator aggregator = new Aggregator();
+        InteractshEntry first = live("2026-01-01T00:00:00Z");
+        InteractshEntry second = live("2026-01-01T00:00:10Z");
+
+        assertNull(aggregator.merge(first, WINDOW));
+        assertSame(first, aggregator.merge(second, WINDOW));
+        assertEquals(2, first.getHits());
+    }
+
+    @Test
+    void restoredEntriesAreNotGroupedOrLoaded() {
+        Aggregator aggregator = new Aggregator();
+        InteractshEntry restored = new InteractshEntry("dns", "abc", "10.0.0.1",
+                Instant.parse("2026-01-01T00:00:00Z"), true, () -> {
+                    throw new IOException("event must not be loaded");
+                });
+        restored.setJournaled(true);
+
+        assertNull(aggregator.merge(restored, WINDOW));
+        assertNull(aggregator.merge(live("2026-01-01T00:00:10Z"), WINDOW));
+        assertEquals(1, aggregator.getGroupCount());
+    }
+
+    private static InteractshEntry live(String timestamp) {
+        return new InteractshEntry("{\"protocol\":\"dns\",\"unique-id\":\"abc\",\"full-id\":\"abc\","
+                + "\"q-type\":\"A\",\"remote-address\":\"10.0.0.1\",\"timestamp\":\"" + timestamp + "\"}");
+    }
+}
@@ -0,0 +1,117 @@
+package interactsh.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import burp.FakeBurp;
+import interactsh.InteractshEntry;
+
+class InteractionJournalTest {
+
+    private FakeBurp burp;
+
+    @BeforeEach
+    void install() {
+        burp = FakeBurp.install(Map.of());
+    }
+
+    @AfterEach
+    void uninstall() {
+        FakeBurp.uninstall();
+    }
+
+    @Test
+    void mergedHitsSurviveAReload() throws Exception {
+        InteractionJournal journal = new InteractionJournal(burp.getExtensionData());
+        InteractshEntry first = live("aaa", "2026-01-01T00:00:00Z");
+        InteractshEntry second = live("bbb", "2026-01-01T00:00:01Z");
+        journal.append(List.of(first, second));
+        first.addDuplicate(live("aaa", "2026-01-01T00:00:30Z"));
+        first.addDuplicate(live("aaa", "2026-01-01T00:00:45Z"));
+        journal.update(List.of(first));
+        journal.close();
+
+        List<InteractshEntry> restored = reload();
+
+        assertEquals(2, restored.size());
+        assertEquals("aaa", restored.get(0).uid);
+        assertEquals(3, restored.get(0).getHits());
+        assertEquals(Instant.parse("2026-01-01T00:00:45Z"), restored.get(0).getLastSeen());
+        assertEquals(1, restored.get(1).getHits());
+        assertEquals(first.getEvent(), restored.get(0).getEvent());
+    }
+
+    @Test
+    void queryTypeIsRestoredWithoutTheEvent() throws Exception {
+        InteractionJournal journal = new InteractionJournal(burp.getExtensionData());
+        journal.append(List.of(live("aaa", "2026-01-01T00:00:00Z")));
+        journal.close();
+
+        List<InteractshEntry> restored = reload();
+        burp.getExtensionData().deleteStringList("interactsh-journal-0-events");
+
+        assertEquals("A", restored.get(0).getQueryType());
+    }
+
+    @Test
+    void burstOfBatchesIsWrittenOnce() throws Exception {
+        InteractionJournal journal = new InteractionJournal(burp.getExtensionData());
+        for (int i = 0; i < 20; i++) {
+            journal.append(List.of(live("uid" + i, "2026-01-01T00:00:00Z")));
+        }
+        journal.close();
+
+        assertEquals(1, Collections.frequency(burp.getProjectWrites(), "interactsh-journal-0-events"));
+        assertEquals(20, reload().size());
+    }
+
+    @Test
+    void fullSegmentsAreRewrittenOnlyForTheirIndex() throws Exception {
+        InteractionJournal journal = new InteractionJournal(burp.getExtensionData());
+        List<InteractshEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            entries.add(live("uid" + i, "2026-01-01T00:00:00Z"));
+        }
+        journal.append(entries);
+        journal.close();
+        burp.getProjectWrites().clear();
+
+        InteractshEntry old = reload().get(0);
+        old.restoreHits(7, Instant.parse("2026-01-02T00:00:00Z"));
+        journal = new InteractionJournal(burp.getExtensionData());
+        journal.update(List.of(old));
+        journal.close();
+
+        assertEquals(List.of("interactsh-journal-0-index"), burp.getProjectWrites());
+        assertEquals(7, reload().get(0).getHits());
+    }
+
+    private List<InteractshEntry> reload() throws Exception {
+        InteractionJournal journal = new InteractionJournal(burp.getExtensionData());
+        CompletableFuture<List<InteractshEntry>> loaded = new CompletableFuture<>();
+        journal.loadAsync(loaded::complete);
+        journal.close();
+        List<InteractshEntry> entries = loaded.get(1, TimeUnit.SECONDS);
+        assertNotNull(entries);
+        assertTrue(entries.stream().allMatch(InteractshEntry::isJournaled));
+        return entries;
+    }
+
+    private static InteractshEntry live(String uid, String timestamp) {
+        return new InteractshEntry("{\"protocol\":\"dns\",\"unique-id\":\"" + uid + "\",\"full-id\":\"" + uid
+                + "\",\"q-type\":\"A\",\"remote-address\":\"10.0.0.1\",\"timestamp\":\"" + timestamp + "\"}");
+    }
+}
@@ -0,0 +1,64 @@
+package interactsh.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import interactsh.InteractshEntry;
+
+class InteractionStoreTest {
+
+    @Test
+    void spillIsWrittenInTheBackgroundAndSwappedInByTheCaller() throws InterruptedException {
+        BlockingQueue<Runnable> swaps = new LinkedBlockingQueue<>();
+        InteractionStore store = new InteractionStore(swaps::add);
+        InteractshEntry first = entry("aaa");
+        InteractshEntry second = entry("bbb");
+        InteractshEntry third = entry("ccc");
+
+        store.addAll(List.of(first, second, third), 1, Long.MAX_VALUE);
+
+        // Nothing is released until the swap runs on the caller's executor.
+        Runnable swap = swaps.poll(5, TimeUnit.SECONDS);
+        assertNotNull(swap);
+        assertNotNull(first.getResidentEvent());
+        swap.run();
+
+        assertNull(first.getResidentEvent());
+        assertNull(second.getResidentEvent());
+        assertNotNull(third.getResidentEvent());
+        assertEquals(entry("aaa").getEvent(), first.getEvent());
+        assertEquals(entry("bbb").getEvent(), second.getEvent());
+        store.close();
+    }
+
+    @Test
+    void spillsQueuedBeforeClearAreDropped() throws InterruptedException {
+        BlockingQueue<Runnable> swaps = new LinkedBlockingQueue<>();
+        InteractionStore store = new InteractionStore(swaps::add);
+        InteractshEntry first = entry("aaa");
+
+        store.addAll(List.of(first, entry("bbb")), 1, Long.MAX_VALUE);
+        store.clear();
+        Runnable swap = swaps.poll(200, TimeUnit.MILLISECONDS);
+        if (swap != null) {
+            // The spill ran before clear(); its file is gone, so nothing is released.
+            swap.run();
+        }
+        assertNotNull(first.getResidentEvent());
+        assertEquals(0, store.size());
+        store.close();
+    }
+
+    private static InteractshEntry entry(String uid) {
+        return new InteractshEntry("{\"protocol\":\"dns\",\"unique-id\":\"" + uid + "\",\"full-id\":\"" + uid
+                + "\",\"remote-address\":\"10.0.0.1\",\"timestamp\":\"2026-01-01T00:00:00Z\"}");
+    }
+}